@@ -0,0 +1,106 @@
+package org.raflab.studsluzba.config;
+
+import io.netty.channel.Channel;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stanje HTTP pool-a ka serveru: otvorene/zauzete/slobodne konekcije i zahtevi koji čekaju konekciju.
+ * Puni ga WebClientConfig (netty callback-ovi + filter); periodično ga loguje MetricsLog.
+ * Čekanje se meri po zahtevu: od pretplate do trenutka kad netty pošalje zahtev preko dobijene konekcije
+ * (Wait iz reactor Context-a), pa ne zavisi od toga kad se konekcija vrati u pool.
+ */
+@Component
+public class HttpPoolMetrics {
+
+    /** Ključ u reactor Context-u pod kojim filter prosleđuje Wait do netty callback-a. */
+    static final String WAIT = HttpPoolMetrics.class.getName() + ".wait";
+
+    // skupovi kanala, a ne brojači - isti kanal može više puta da prođe kroz callback
+    private final Set<Channel> open = ConcurrentHashMap.newKeySet();
+    private final Set<Channel> busy = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger maxPending = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    void connected(Channel ch) {
+        if (open.add(ch)) {
+            connectionsOpened.incrementAndGet();
+            ch.closeFuture().addListener(f -> {
+                open.remove(ch);
+                busy.remove(ch);
+            });
+        }
+    }
+
+    void acquired(Channel ch) {
+        busy.add(ch);
+    }
+
+    void released(Channel ch) {
+        busy.remove(ch);
+    }
+
+    /** Zahtev je prosleđen WebClient-u i čeka konekciju. */
+    Wait requestStarted() {
+        requests.incrementAndGet();
+        inFlight.incrementAndGet();
+        maxPending.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+        return new Wait();
+    }
+
+    /** Netty šalje zahtev preko dobijene konekcije (null ako Context nije stigao do callback-a). */
+    void connectionAcquired(Wait wait) {
+        if (wait != null && wait.done.compareAndSet(false, true)) waiting.decrementAndGet();
+    }
+
+    /** Kraj zahteva; ako konekcija nikad nije dobijena (timeout, otkazivanje), prestaje i čekanje. */
+    void requestFinished(Wait wait) {
+        inFlight.decrementAndGet();
+        connectionAcquired(wait);
+    }
+
+    void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    void timeout() {
+        timeouts.incrementAndGet();
+    }
+
+    public int getOpen() { return open.size(); }
+    public int getActive() { return busy.size(); }
+    public int getIdle() { return Math.max(0, open.size() - busy.size()); }
+    public int getInFlight() { return inFlight.get(); }
+
+    /** Zahtevi koji su poslati WebClient-u, a još nemaju konekciju. */
+    public int getPending() { return waiting.get(); }
+
+    public int getMaxPending() { return maxPending.get(); }
+    public long getRequests() { return requests.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getTimeouts() { return timeouts.get(); }
+    public long getConnectionsOpened() { return connectionsOpened.get(); }
+
+    @Override
+    public String toString() {
+        return "open=" + getOpen() + " active=" + getActive() + " idle=" + getIdle()
+                + " pending=" + getPending() + " (max " + getMaxPending() + ")"
+                + " requests=" + getRequests() + " rejected=" + getRejected() + " timeouts=" + getTimeouts()
+                + " connectionsOpened=" + getConnectionsOpened();
+    }
+
+    static final class Wait {
+        private final AtomicBoolean done = new AtomicBoolean();
+    }
+}
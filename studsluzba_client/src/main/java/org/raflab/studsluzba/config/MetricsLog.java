@@ -0,0 +1,72 @@
+package org.raflab.studsluzba.config;
+
+import org.raflab.studsluzba.service.PdfCache;
+import org.raflab.studsluzba.service.ReferenceDataCache;
+import org.raflab.studsluzba.service.ReportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Periodičan log brojača (HTTP pool, spajanje GET-ova, šifarnici, keš PDF-ova, heap pri fill-u),
+ * za dimenzionisanje app.http.* / app.cache.* na klijentima. Interval 0 = isključeno.
+ * Ako od prošlog loga nije bilo ni zahteva ni izveštaja, red se preskače.
+ */
+@Component
+public class MetricsLog {
+
+    private final HttpPoolMetrics pool;
+    private final RequestCoalescingFilter coalescing;
+    private final ReferenceDataCache refData;
+    private final PdfCache pdfCache;
+    private final ReportService reports;
+    private final long intervalSeconds;
+
+    private long lastRequests = -1;
+    private long lastFills = -1;
+    private Disposable ticker;
+
+    public MetricsLog(HttpPoolMetrics pool, RequestCoalescingFilter coalescing, ReferenceDataCache refData,
+                      PdfCache pdfCache, ReportService reports,
+                      @Value("${app.metrics.logSeconds:60}") long intervalSeconds) {
+        this.pool = pool;
+        this.coalescing = coalescing;
+        this.refData = refData;
+        this.pdfCache = pdfCache;
+        this.reports = reports;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (intervalSeconds <= 0) return;
+        ticker = Flux.interval(Duration.ofSeconds(intervalSeconds))
+                .onBackpressureDrop()
+                .subscribe(t -> log());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) ticker.dispose();
+    }
+
+    private synchronized void log() {
+        long requests = pool.getRequests();
+        long fills = reports.getMemoryStats().getFills();
+        if (requests == lastRequests && fills == lastFills) return;
+        lastRequests = requests;
+        lastFills = fills;
+
+        System.out.println(">>> metrics http pool: " + pool);
+        System.out.println(">>> metrics http coalescing: " + coalescing);
+        System.out.println(">>> metrics šifarnici: " + refData);
+        System.out.println(">>> metrics pdf keš: " + pdfCache);
+        System.out.println(">>> metrics izveštaji heap: " + reports.getMemoryStats());
+    }
+}
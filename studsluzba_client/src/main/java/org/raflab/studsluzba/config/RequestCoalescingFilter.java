@@ -0,0 +1,115 @@
+package org.raflab.studsluzba.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaja istovremene identične GET zahteve (isti URL sa parametrima i isti uslovni/Accept header-i)
+ * u jedan poziv ka serveru - samo za zahteve označene atributom COALESCE (mali JSON lookup-i:
+ * indeks, profil...). Telo odgovora se baferuje, pa svaki pretplatnik dobija svoj ClientResponse
+ * i sam ga dekodira - nema deljenih (promenljivih) objekata između ekrana.
+ * Zato se ne označavaju bodyToFlux endpoint-i (stream-ovali bi tek posle celog tela) ni veliki odgovori.
+ * Deli se samo dok je zahtev u letu; kad se svi pretplatnici odjave, poziv ka serveru se prekida.
+ */
+@Component
+public class RequestCoalescingFilter implements ExchangeFilterFunction {
+
+    /** Atribut zahteva (webClient.get().attribute(COALESCE, true)) kojim se GET uključuje u spajanje. */
+    public static final String COALESCE = RequestCoalescingFilter.class.getName() + ".coalesce";
+
+    private final boolean enabled;
+
+    private final Map<String, Shared> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public RequestCoalescingFilter(@Value("${app.http.coalesceGets:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!enabled || request.method() != HttpMethod.GET
+                || !Boolean.TRUE.equals(request.attribute(COALESCE).orElse(null))) {
+            return next.exchange(request);
+        }
+
+        requests.incrementAndGet();
+        String key = key(request);
+
+        Shared shared = inFlight.get(key);
+        if (shared == null) {
+            Shared created = new Shared();
+            created.response = next.exchange(request)
+                    .flatMap(Buffered::of)
+                    .doFinally(s -> inFlight.remove(key, created))
+                    // deljen dok ga neko čeka; poslednje otkazivanje prekida i poziv ka serveru
+                    .flux().publish().refCount()
+                    .next();
+
+            shared = inFlight.putIfAbsent(key, created);
+            if (shared == null) shared = created;
+            else collapsed.incrementAndGet();
+        } else {
+            collapsed.incrementAndGet();
+        }
+
+        return shared.response.map(Buffered::toResponse);
+    }
+
+    public long getRequests() { return requests.get(); }
+    public long getCollapsed() { return collapsed.get(); }
+    public int getInFlight() { return inFlight.size(); }
+
+    @Override
+    public String toString() {
+        return "GET=" + requests + " collapsed=" + collapsed + " inFlight=" + inFlight.size();
+    }
+
+    private static String key(ClientRequest request) {
+        HttpHeaders h = request.headers();
+        return request.method() + " " + request.url()
+                + "|" + h.getFirst(HttpHeaders.ACCEPT)
+                + "|" + h.getFirst(HttpHeaders.IF_NONE_MATCH)
+                + "|" + h.getFirst(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    private static final class Shared {
+        Mono<Buffered> response;
+    }
+
+    private static final class Buffered {
+        final ClientResponse original;
+        final byte[] body;
+
+        private Buffered(ClientResponse original, byte[] body) {
+            this.original = original;
+            this.body = body;
+        }
+
+        static Mono<Buffered> of(ClientResponse resp) {
+            return resp.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .map(bytes -> new Buffered(resp, bytes));
+        }
+
+        ClientResponse toResponse() {
+            Flux<DataBuffer> copy = Flux.defer(() -> Flux.just(new DefaultDataBufferFactory().wrap(body)));
+            return ClientResponse.from(original).body(copy).build();
+        }
+    }
+}
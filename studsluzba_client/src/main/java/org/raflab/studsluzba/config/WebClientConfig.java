@@ -1,18 +1,151 @@
 package org.raflab.studsluzba.config;
 
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 @Configuration
 public class WebClientConfig {
 
+    @Value("${app.http.maxConnections:20}")
+    private int maxConnections;
+
+    @Value("${app.http.acquireTimeoutMs:5000}")
+    private long acquireTimeoutMs;
+
+    @Value("${app.http.maxIdleTimeMs:30000}")
+    private long maxIdleTimeMs;
+
+    // koliko zahteva sme da čeka na slobodnu konekciju pre nego što odbijemo nove
+    @Value("${app.http.pendingAcquireMax:200}")
+    private int pendingAcquireMax;
+
+    @Value("${app.http.connectTimeoutMs:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.http.responseTimeoutMs:15000}")
+    private long responseTimeoutMs;
+
+    // npr. /api/polozeni=30000,/api/student/search=5000 (najduži prefiks pobeđuje)
+    @Value("${app.http.endpointTimeouts:}")
+    private String endpointTimeouts;
+
+    @Value("${app.http.keepAlive:true}")
+    private boolean keepAlive;
+
+    @Value("${app.http.compress:true}")
+    private boolean compress;
+
+    // HTTP/2 bez TLS-a (upgrade sa HTTP/1.1); server koji ga ne podržava ostaje na 1.1
+    @Value("${app.http.h2c:false}")
+    private boolean h2c;
+
+    @Value("${app.http.maxInMemoryKb:4096}")
+    private int maxInMemoryKb;
+
     @Bean
-    public WebClient webClient(@Value("${app.api.baseUrl}") String baseUrl) {
+    public WebClient webClient(@Value("${app.api.baseUrl}") String baseUrl, HttpPoolMetrics metrics,
+                               RequestCoalescingFilter coalescing) {
         System.out.println(">>> CLIENT baseUrl = [" + baseUrl + "]");
-        return WebClient.builder().baseUrl(baseUrl).build();
+
+        ConnectionProvider pool = ConnectionProvider.fixed("studsluzba-api",
+                Math.max(1, maxConnections), acquireTimeoutMs, Duration.ofMillis(maxIdleTimeMs));
+
+        HttpClient http = HttpClient.create(pool)
+                .tcpConfiguration(tcp -> tcp
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                        .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                        .doOnConnected(conn -> metrics.connected(conn.channel())))
+                .keepAlive(keepAlive)
+                .compress(compress)
+                .doOnRequest((req, conn) -> {
+                    metrics.acquired(conn.channel());
+                    metrics.connectionAcquired(req.currentContext().getOrDefault(HttpPoolMetrics.WAIT, null));
+                })
+                .doAfterResponse((res, conn) -> metrics.released(conn.channel()));
+
+        if (h2c) http = http.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(maxInMemoryKb * 1024))
+                .build();
+
+        System.out.println(">>> CLIENT pool maxConnections=" + maxConnections + " pendingMax=" + pendingAcquireMax
+                + " connect=" + connectTimeoutMs + "ms response=" + responseTimeoutMs + "ms"
+                + " compress=" + compress + " h2c=" + h2c);
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .exchangeStrategies(strategies)
+                // spajanje ide prvo, da pool/timeout vide samo zahteve koji stvarno idu na server
+                .filter(coalescing)
+                .filter(poolFilter(metrics, parseTimeouts(endpointTimeouts)))
+                .build();
     }
-}
 
+    /** Ograničenje reda čekanja, timeout po endpoint-u i brojanje zahteva u letu. */
+    private ExchangeFilterFunction poolFilter(HttpPoolMetrics metrics, Map<String, Duration> timeouts) {
+        return (request, next) -> {
+            if (metrics.getPending() >= pendingAcquireMax) {
+                metrics.rejected();
+                return Mono.error(new IllegalStateException("Previše zahteva čeka na konekciju ka serveru ("
+                        + metrics.getPending() + "), pokušajte ponovo."));
+            }
+
+            Duration timeout = timeoutFor(request.url().getPath(), timeouts);
+            return Mono.defer(() -> {
+                        HttpPoolMetrics.Wait wait = metrics.requestStarted();
+                        return next.exchange(request)
+                                .timeout(timeout)
+                                .doOnError(TimeoutException.class, e -> {
+                                    metrics.timeout();
+                                    System.out.println(">>> HTTP timeout " + request.method() + " " + request.url().getPath()
+                                            + " posle " + timeout.toMillis() + " ms; pool: " + metrics);
+                                })
+                                .doFinally(s -> metrics.requestFinished(wait))
+                                // netty doOnRequest ga čita iz Context-a i tu se čekanje završava
+                                .subscriberContext(ctx -> ctx.put(HttpPoolMetrics.WAIT, wait));
+                    });
+        };
+    }
+
+    private Duration timeoutFor(String path, Map<String, Duration> timeouts) {
+        String best = null;
+        for (String prefix : timeouts.keySet()) {
+            if (path != null && path.startsWith(prefix) && (best == null || prefix.length() > best.length())) best = prefix;
+        }
+        return best != null ? timeouts.get(best) : Duration.ofMillis(responseTimeoutMs);
+    }
+
+    private static Map<String, Duration> parseTimeouts(String spec) {
+        Map<String, Duration> m = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) return m;
+
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) continue;
+            try {
+                m.put(kv[0].trim(), Duration.ofMillis(Long.parseLong(kv[1].trim())));
+            } catch (NumberFormatException e) {
+                System.out.println(">>> app.http.endpointTimeouts: neispravna vrednost '" + part + "'");
+            }
+        }
+        return m;
+    }
+}
@@ -1,11 +1,21 @@
 package org.raflab.studsluzba.navigation;
 
+import javafx.application.Platform;
+import org.raflab.studsluzba.service.ExamApiService;
+import org.raflab.studsluzba.service.ProgramApiService;
 import org.raflab.studsluzba.service.StudentApiService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class NavigationService {
@@ -18,14 +28,36 @@ public class NavigationService {
 
     private final int maxDepth;
 
+    // u stekovima su kompaktne rute (tip + id + tab); payload-i su u soft store-u
     private final Deque<Route> backStack = new ArrayDeque<>();
     private final Deque<Route> forwardStack = new ArrayDeque<>();
+    private final RoutePayloads payloads = new RoutePayloads();
+
+    private final StudentApiService studentApi;
+    private final ExamApiService examApi;
+    private final ProgramApiService programApi;
 
     private Route current;
     private Renderer renderer;
 
-    public NavigationService(@Value("${app.history.maxDepth:10}") int maxDepth) {
+    // zahtevi prikazanog ekrana; zatvara se kad se promeni ruta (ne i kad se promeni samo tab)
+    private ViewScope scope = new ViewScope();
+    private long cancelledRequests;
+    private long closedScopes;
+
+    // podaci ekrana po snapshotKey rute (LRU redosled); žive dok ih neka ruta u history-ju koristi
+    private final long snapshotBudget;
+    private final LinkedHashMap<String, ViewSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long snapshotBytes;
+
+    public NavigationService(StudentApiService studentApi, ExamApiService examApi, ProgramApiService programApi,
+                             @Value("${app.history.maxDepth:200}") int maxDepth,
+                             @Value("${app.history.snapshotBudgetKb:4096}") long snapshotBudgetKb) {
+        this.studentApi = studentApi;
+        this.examApi = examApi;
+        this.programApi = programApi;
         this.maxDepth = Math.max(1, maxDepth);
+        this.snapshotBudget = Math.max(0, snapshotBudgetKb) * 1024;
     }
 
     public void setRenderer(Renderer renderer) {
@@ -36,24 +68,60 @@ public class NavigationService {
         return current;
     }
 
+    /** Scope ekrana koji se upravo prikazuje; kontroler ga uzima pri vezivanju za rutu. */
+    public ViewScope scope() {
+        return scope;
+    }
+
+    /**
+     * Ekran trenutne rute je sklonjen mimo navigacije (npr. pretraga po imenu nije ruta),
+     * pa se njegovi zahtevi otkazuju.
+     */
+    public void leaveCurrentView() {
+        rescope(null);
+    }
+
+    public long getCancelledRequests() {
+        return cancelledRequests;
+    }
+
+    public long getClosedScopes() {
+        return closedScopes;
+    }
+
+    /**
+     * Snapshot za trenutnu rutu (isti za sve tabove jednog studenta), null ako ruta nema šta da čuva.
+     * Ekran ga uzima u setData i puni ga kako stižu podaci.
+     */
+    public ViewSnapshot currentSnapshot() {
+        String key = current != null ? current.snapshotKey() : null;
+        if (key == null || snapshotBudget == 0) return null;
+        return snapshots.computeIfAbsent(key, k -> new ViewSnapshot(k, this::resized));
+    }
+
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
     public void setInitial(Route route) {
         if (route == null) return;
         backStack.clear();
         forwardStack.clear();
+        rescope(route);
         current = route;
+        retain();
         render(route);
     }
 
     public void navigate(Route next) {
         if (next == null) return;
 
-        if (current != null) {
-            backStack.push(current);
-            trim(backStack);
-        }
+        if (current != null) push(backStack, current);
         forwardStack.clear();
 
+        rescope(next);
         current = next;
+        retain();
         render(next);
     }
 
@@ -66,25 +134,15 @@ public class NavigationService {
     public void back() {
         if (backStack.isEmpty()) return;
 
-        if (current != null) {
-            forwardStack.push(current);
-            trim(forwardStack);
-        }
-
-        current = backStack.pop();
-        render(current);
+        if (current != null) push(forwardStack, current);
+        show(backStack.pop());
     }
 
     public void forward() {
         if (forwardStack.isEmpty()) return;
 
-        if (current != null) {
-            backStack.push(current);
-            trim(backStack);
-        }
-
-        current = forwardStack.pop();
-        render(current);
+        if (current != null) push(backStack, current);
+        show(forwardStack.pop());
     }
 
     private void render(Route r) {
@@ -93,9 +151,131 @@ public class NavigationService {
         }
     }
 
+    private void push(Deque<Route> stack, Route r) {
+        payloads.put(r);
+        stack.push(r.compact());
+        trim(stack);
+    }
+
+    /** Ruta iz history-ja: payload iz memorije, a ako ga je GC oslobodio - ponovo sa servera. */
+    private void show(Route r) {
+        rescope(r);
+        Route full = payloads.rehydrate(r);
+        current = full != null ? full : r;
+        retain();
+        if (full != null) {
+            render(full);
+            return;
+        }
+
+        System.out.println(">>> payload za " + r + " nije više u memoriji, učitava se ponovo (" + payloads + ")");
+        scope.track(load(r).subscribe(
+                loaded -> Platform.runLater(() -> {
+                    if (current != r) return; // korisnik je u međuvremenu otišao dalje
+                    current = loaded;
+                    render(loaded);
+                }),
+                err -> System.out.println(">>> ruta " + r + " ne može da se učita: " + err.getMessage())));
+    }
+
+    private Mono<Route> load(Route r) {
+        Long id = r.getId();
+        switch (r.getType()) {
+            case STUDENT_PROFILE:
+                return Mono.zip(studentApi.getStudentIndeks(id), studentApi.getProfile(id))
+                        .map(t -> Route.studentProfile(t.getT1(), t.getT2(), r.getStudentTab()));
+            case EXAMS_BY_PERIOD:
+                return examApi.getIspitniRokovi()
+                        .flatMapIterable(list -> list)
+                        .filter(rok -> id.equals(rok.getId()))
+                        .next()
+                        .map(Route::examsByPeriod)
+                        .switchIfEmpty(Mono.error(new IllegalStateException("rok " + id + " ne postoji")));
+            case PROGRAM_DETAILS:
+                return programApi.getStudijskiProgrami()
+                        .flatMapIterable(list -> list)
+                        .filter(p -> id.equals(p.getId()))
+                        .next()
+                        .map(Route::programDetails)
+                        .switchIfEmpty(Mono.error(new IllegalStateException("program " + id + " ne postoji")));
+            default:
+                return Mono.just(r);
+        }
+    }
+
+    /** Nova ruta dobija nov scope, osim kad se menja samo tab istog ekrana. */
+    private void rescope(Route next) {
+        if (next != null && current != null
+                && next.getType() == current.getType()
+                && Objects.equals(next.getId(), current.getId())
+                && Objects.equals(next.getSearchText(), current.getSearchText())) {
+            return;
+        }
+
+        int n = scope.dispose();
+        scope = new ViewScope();
+        closedScopes++;
+        if (n > 0) {
+            cancelledRequests += n;
+            System.out.println(">>> napušten ekran " + current + ": otkazano " + n
+                    + " zahteva (ukupno " + cancelledRequests + ")");
+        }
+    }
+
     private void trim(Deque<Route> stack) {
         while (stack.size() > maxDepth) {
             stack.removeLast();
         }
     }
+
+    /** Payload-i i snapshot-i ruta koje su ispale iz history-ja (maxDepth, novi forward) se oslobađaju. */
+    private void retain() {
+        Set<String> payloadKeys = new HashSet<>();
+        Set<String> used = new HashSet<>();
+        if (current != null) {
+            payloadKeys.add(current.payloadKey());
+            used.add(current.snapshotKey());
+        }
+        for (Deque<Route> stack : List.of(backStack, forwardStack)) {
+            for (Route r : stack) {
+                payloadKeys.add(r.payloadKey());
+                used.add(r.snapshotKey());
+            }
+        }
+        payloads.retain(payloadKeys);
+
+        Iterator<ViewSnapshot> it = snapshots.values().iterator();
+        while (it.hasNext()) {
+            ViewSnapshot s = it.next();
+            if (used.contains(s.getKey())) continue;
+            it.remove();
+            drop(s);
+        }
+    }
+
+    private void resized(ViewSnapshot changed, long delta) {
+        if (changed.isReleased()) return;
+        snapshotBytes += delta;
+        if (snapshotBytes <= snapshotBudget) return;
+
+        // preko budžeta: prvo najdavnije korišćeni, na kraju i onaj koji se upravo puni
+        Iterator<ViewSnapshot> it = snapshots.values().iterator();
+        while (it.hasNext() && snapshotBytes > snapshotBudget) {
+            ViewSnapshot s = it.next();
+            if (s == changed) continue;
+            it.remove();
+            drop(s);
+        }
+        if (snapshotBytes > snapshotBudget) {
+            snapshots.remove(changed.getKey());
+            drop(changed);
+        }
+        System.out.println(">>> history snapshot-i preko budžeta, ostaje " + snapshots.size()
+                + " (" + snapshotBytes / 1024 + " KB)");
+    }
+
+    private void drop(ViewSnapshot s) {
+        snapshotBytes -= s.getBytes();
+        s.release();
+    }
 }
@@ -7,72 +7,119 @@ import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 
 import java.util.Objects;
 
+/**
+ * Ruta je identitet ekrana: tip + id + tab (+ tekst pretrage) - to ide u history i poredi se.
+ * Payload (indeks, profil, rok, program) ruta nosi samo dok je živa; u back/forward steku
+ * stoji kompaktna verzija, a payload se čuva u {@link RoutePayloads} i vraća kad ruta opet zatreba.
+ */
 public final class Route {
 
     private final RouteType type;
 
     private final String searchText;
 
-    private final StudentIndeksResponse indeks;
-    private final StudentProfileDTO profile;
+    // id payload-a (indeks, rok ili program) - ulazi u equals/hashCode umesto celog objekta
+    private final Long id;
     private final StudentTab studentTab;
 
+    // payload - ne ulazi u equals/hashCode
+    private final StudentIndeksResponse indeks;
+    private final StudentProfileDTO profile;
     private final IspitniRokResponse ispitniRok;
-
     private final StudijskiProgramResponse program;
 
     private Route(RouteType type,
                   String searchText,
+                  Long id,
+                  StudentTab studentTab,
                   StudentIndeksResponse indeks,
                   StudentProfileDTO profile,
-                  StudentTab studentTab,
                   IspitniRokResponse ispitniRok,
                   StudijskiProgramResponse program) {
         this.type = type;
         this.searchText = searchText;
+        this.id = id;
+        this.studentTab = studentTab;
         this.indeks = indeks;
         this.profile = profile;
-        this.studentTab = studentTab;
         this.ispitniRok = ispitniRok;
         this.program = program;
     }
 
     // fabrike
     public static Route searchByIndex(String searchText) {
-        return new Route(RouteType.SEARCH_BY_INDEX, searchText, null, null, null, null, null);
+        return new Route(RouteType.SEARCH_BY_INDEX, searchText, null, null, null, null, null, null);
     }
 
     public static Route studentProfile(StudentIndeksResponse indeks, StudentProfileDTO profile, StudentTab tab) {
-        return new Route(RouteType.STUDENT_PROFILE, null, indeks, profile, tab, null, null);
+        return new Route(RouteType.STUDENT_PROFILE, null, indeks != null ? indeks.getId() : null, tab, indeks, profile, null, null);
     }
 
     // ispiti/rokovi
     public static Route examPeriods() {
-        return new Route(RouteType.EXAM_PERIODS, null, null, null, null, null, null);
+        return new Route(RouteType.EXAM_PERIODS, null, null, null, null, null, null, null);
     }
 
     public static Route examsByPeriod(IspitniRokResponse rok) {
-        return new Route(RouteType.EXAMS_BY_PERIOD, null, null, null, null, rok, null);
+        return new Route(RouteType.EXAMS_BY_PERIOD, null, rok != null ? rok.getId() : null, null, null, null, rok, null);
     }
 
     // programi/predmeti
     public static Route studyPrograms() {
-        return new Route(RouteType.STUDY_PROGRAMS, null, null, null, null, null, null);
+        return new Route(RouteType.STUDY_PROGRAMS, null, null, null, null, null, null, null);
     }
 
     public static Route programDetails(StudijskiProgramResponse p) {
-        return new Route(RouteType.PROGRAM_DETAILS, null, null, null, null, null, p);
+        return new Route(RouteType.PROGRAM_DETAILS, null, p != null ? p.getId() : null, null, null, null, null, p);
     }
 
     // getters
     public RouteType getType() { return type; }
     public String getSearchText() { return searchText; }
+    public Long getId() { return id; }
     public StudentIndeksResponse getIndeks() { return indeks; }
     public StudentProfileDTO getProfile() { return profile; }
     public StudentTab getStudentTab() { return studentTab; }
     public IspitniRokResponse getIspitniRok() { return ispitniRok; }
     public StudijskiProgramResponse getProgram() { return program; }
 
+    /**
+     * Ključ pod kojim history čuva već učitane podatke ekrana; svi tabovi jednog studenta dele isti.
+     * null - ruta nema podatke vredne čuvanja.
+     */
+    public String snapshotKey() {
+        if (type == RouteType.STUDENT_PROFILE && id != null) {
+            return "student|" + id;
+        }
+        return null;
+    }
+
+    /** Ključ payload-a (bez taba): "STUDENT_PROFILE|42"; null za rute bez payload-a. */
+    String payloadKey() {
+        return id != null ? type + "|" + id : null;
+    }
+
+    /** Da li ruta nosi payload (kompaktna iz history-ja ga nema). */
+    boolean hasPayload() {
+        switch (type) {
+            case STUDENT_PROFILE: return indeks != null;
+            case EXAMS_BY_PERIOD: return ispitniRok != null;
+            case PROGRAM_DETAILS: return program != null;
+            default: return true;
+        }
+    }
+
+    /** Ruta bez payload-a, za back/forward stek; bez id-a payload ne bi mogao da se vrati, pa ostaje. */
+    Route compact() {
+        if (payloadKey() == null || !hasPayload()) return this;
+        return new Route(type, searchText, id, studentTab, null, null, null, null);
+    }
+
+    /** Ova ruta (tab, tekst) sa payload-om druge rute istog ključa. */
+    Route withPayloadOf(Route full) {
+        return new Route(type, searchText, id, studentTab, full.indeks, full.profile, full.ispitniRok, full.program);
+    }
+
     // helpers
     public Route withSearchText(String newText) {
         if (type != RouteType.SEARCH_BY_INDEX) return this;
@@ -81,7 +128,7 @@ public final class Route {
 
     public Route withStudentTab(StudentTab tab) {
         if (type != RouteType.STUDENT_PROFILE) return this;
-        return Route.studentProfile(indeks, profile, tab);
+        return new Route(type, null, id, tab, indeks, profile, null, null);
     }
 
     @Override
@@ -91,15 +138,18 @@ public final class Route {
         Route route = (Route) o;
         return type == route.type
                 && Objects.equals(searchText, route.searchText)
-                && Objects.equals(indeks, route.indeks)
-                && Objects.equals(profile, route.profile)
-                && studentTab == route.studentTab
-                && Objects.equals(ispitniRok, route.ispitniRok)
-                && Objects.equals(program, route.program); // ✅ DODATO
+                && Objects.equals(id, route.id)
+                && studentTab == route.studentTab;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, searchText, indeks, profile, studentTab, ispitniRok, program); // ✅ DODATO
+        return Objects.hash(type, searchText, id, studentTab);
+    }
+
+    @Override
+    public String toString() {
+        return type + (id != null ? "#" + id : "") + (studentTab != null ? "/" + studentTab : "")
+                + (searchText != null ? " \"" + searchText + "\"" : "");
     }
 }
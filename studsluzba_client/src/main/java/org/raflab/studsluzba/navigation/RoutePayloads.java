@@ -0,0 +1,74 @@
+package org.raflab.studsluzba.navigation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Payload-i ruta iz history-ja, po payloadKey ("STUDENT_PROFILE|42"), preko SoftReference:
+ * GC ih sme osloboditi kad zatreba memorije, a ruta se tada ponovo učitava sa servera.
+ * Ključevi koje više nijedna ruta u history-ju ne koristi se brišu odmah.
+ */
+final class RoutePayloads {
+
+    private final Map<String, Ref> store = new HashMap<>();
+    private final ReferenceQueue<Route> queue = new ReferenceQueue<>();
+
+    private long hits;
+    private long misses;
+
+    void put(Route full) {
+        String key = full.payloadKey();
+        if (key == null || !full.hasPayload()) return;
+        expunge();
+        store.put(key, new Ref(key, full, queue));
+    }
+
+    /** Ruta sa payload-om, ili null ako ga je GC u međuvremenu oslobodio. */
+    Route rehydrate(Route route) {
+        if (route.hasPayload()) return route;
+
+        Ref ref = store.get(route.payloadKey());
+        Route full = ref != null ? ref.get() : null;
+        if (full == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return route.withPayloadOf(full);
+    }
+
+    void retain(Set<String> keys) {
+        expunge();
+        store.keySet().retainAll(keys);
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    @Override
+    public String toString() {
+        return "payloads=" + store.size() + " iz memorije=" + hits + " ponovo učitano=" + misses;
+    }
+
+    private void expunge() {
+        Object r;
+        while ((r = queue.poll()) != null) {
+            Ref ref = (Ref) r;
+            // ključ je možda u međuvremenu dobio novu referencu
+            store.remove(ref.key, ref);
+        }
+    }
+
+    private static final class Ref extends SoftReference<Route> {
+        final String key;
+
+        Ref(String key, Route full, ReferenceQueue<Route> queue) {
+            super(full, queue);
+            this.key = key;
+        }
+    }
+}
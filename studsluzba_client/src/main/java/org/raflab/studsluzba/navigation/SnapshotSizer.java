@@ -0,0 +1,100 @@
+package org.raflab.studsluzba.navigation;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gruba procena memorije za DTO-e u snapshot-ima (reda veličine, ne tačno):
+ * stringovi po dužini, kolekcije po uzorku prvih SAMPLE elemenata, naši DTO-i po poljima.
+ * JDK klase se ne otvaraju refleksijom.
+ */
+final class SnapshotSizer {
+
+    private static final int SAMPLE = 16;
+    private static final int MAX_DEPTH = 4;
+    private static final long HEADER = 16;
+    private static final long REF = 8;
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> out = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers())) continue;
+                    try {
+                        f.setAccessible(true);
+                        out.add(f);
+                    } catch (RuntimeException e) {
+                        // polje koje ne može da se pročita ulazi samo kao referenca
+                    }
+                }
+            }
+            return out.toArray(new Field[0]);
+        }
+    };
+
+    private SnapshotSizer() {
+    }
+
+    static long estimate(Object o) {
+        return estimate(o, 0, new IdentityHashMap<>());
+    }
+
+    private static long estimate(Object o, int depth, Map<Object, Boolean> seen) {
+        if (o == null) return 0;
+        if (o instanceof String) return 40 + 2L * ((String) o).length();
+        if (o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Enum) return HEADER;
+        if (o instanceof TemporalAccessor) return 24;
+        if (seen.put(o, Boolean.TRUE) != null) return 0;
+
+        if (o instanceof Collection) return HEADER + sampled(((Collection<?>) o).iterator(), ((Collection<?>) o).size(), depth, seen);
+        if (o instanceof Map) {
+            Map<?, ?> m = (Map<?, ?>) o;
+            return HEADER + sampled(m.keySet().iterator(), m.size(), depth, seen)
+                    + sampled(m.values().iterator(), m.size(), depth, seen);
+        }
+
+        Class<?> c = o.getClass();
+        if (c.isArray()) {
+            int n = Array.getLength(o);
+            if (c.getComponentType().isPrimitive()) return HEADER + 8L * n;
+            List<Object> items = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) items.add(Array.get(o, i));
+            return HEADER + sampled(items.iterator(), n, depth, seen);
+        }
+        if (depth >= MAX_DEPTH || c.getName().startsWith("java.")) return HEADER + REF;
+
+        long size = HEADER;
+        for (Field f : FIELDS.get(c)) {
+            size += REF;
+            if (f.getType().isPrimitive()) continue;
+            try {
+                size += estimate(f.get(o), depth + 1, seen);
+            } catch (IllegalAccessException e) {
+                // ostaje samo referenca
+            }
+        }
+        return size;
+    }
+
+    /** Prvih SAMPLE elemenata se meri, ostatak se procenjuje po proseku. */
+    private static long sampled(Iterator<?> it, int size, int depth, Map<Object, Boolean> seen) {
+        long sum = 0;
+        int measured = 0;
+        while (it.hasNext() && measured < SAMPLE) {
+            sum += estimate(it.next(), depth + 1, seen);
+            measured++;
+        }
+        long perItem = measured == 0 ? 0 : sum / measured;
+        return REF * size + sum + perItem * (size - measured);
+    }
+}
@@ -0,0 +1,58 @@
+package org.raflab.studsluzba.navigation;
+
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zahtevi pokrenuti za jedan prikazani ekran (rutu). Kad korisnik ode sa rute, NavigationService
+ * zatvara scope: zahtevi koji još traju se otkazuju, a guard-ovane izmene UI-a koje su već
+ * u redu (runLater, UiDispatcher) se preskaču - kontroleri su singleton-i i već prikazuju drugi ekran.
+ */
+public final class ViewScope {
+
+    // završeni zahtevi se izbacuju kad ih se skupi ovoliko
+    private static final int PURGE_AT = 32;
+
+    private final List<Disposable> tracked = new ArrayList<>();
+    private volatile boolean disposed;
+
+    ViewScope() {
+    }
+
+    /** Zahtev vezan za ovaj ekran; ako je ekran već napušten, otkazuje se odmah. */
+    public synchronized <D extends Disposable> D track(D d) {
+        if (disposed) {
+            d.dispose();
+            return d;
+        }
+        if (tracked.size() >= PURGE_AT) tracked.removeIf(Disposable::isDisposed);
+        tracked.add(d);
+        return d;
+    }
+
+    public boolean isActive() {
+        return !disposed;
+    }
+
+    /** Izmena UI-a koja se preskače ako je ekran u međuvremenu napušten. */
+    public Runnable guard(Runnable r) {
+        return () -> {
+            if (!disposed) r.run();
+        };
+    }
+
+    /** Vraća broj zahteva koji su otkazani (nisu stigli da se završe). */
+    synchronized int dispose() {
+        disposed = true;
+        int cancelled = 0;
+        for (Disposable d : tracked) {
+            if (d.isDisposed()) continue;
+            d.dispose();
+            cancelled++;
+        }
+        tracked.clear();
+        return cancelled;
+    }
+}
@@ -0,0 +1,72 @@
+package org.raflab.studsluzba.navigation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Podaci koje je ekran već učitao za jednu rutu (npr. tabovi profila jednog studenta).
+ * Back/forward ih prikazuje odmah, a ekran ih u pozadini osvežava sa servera.
+ * Veličina se procenjuje pri svakom put-u i prijavljuje NavigationService-u zbog budžeta memorije.
+ */
+public final class ViewSnapshot {
+
+    interface Accounting {
+        void resized(ViewSnapshot snapshot, long delta);
+    }
+
+    private final String key;
+    private final Accounting accounting;
+    private final Map<String, Part> parts = new HashMap<>();
+    private long bytes;
+    private boolean released;
+
+    ViewSnapshot(String key, Accounting accounting) {
+        this.key = key;
+        this.accounting = accounting;
+    }
+
+    /** Poziva se sa FX niti; posle izbacivanja iz history-ja put se ignoriše. */
+    public void put(String part, Object data) {
+        if (released || data == null) return;
+
+        long size = SnapshotSizer.estimate(data);
+        Part old = parts.put(part, new Part(data, size));
+        long delta = size - (old != null ? old.bytes : 0);
+        bytes += delta;
+        accounting.resized(this, delta);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String part) {
+        Part p = parts.get(part);
+        return p != null ? (T) p.data : null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    void release() {
+        released = true;
+        parts.clear();
+        bytes = 0;
+    }
+
+    private static final class Part {
+        final Object data;
+        final long bytes;
+
+        Part(Object data, long bytes) {
+            this.data = data;
+            this.bytes = bytes;
+        }
+    }
+}
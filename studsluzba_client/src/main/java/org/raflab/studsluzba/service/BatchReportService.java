@@ -0,0 +1,304 @@
+package org.raflab.studsluzba.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
+import org.raflab.studsluzba.model.dtos.StudentDTO;
+import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Masovno generisanje potvrda/uverenja za ceo program ili generaciju.
+ * Podaci se povlače paralelno (ograničeno), fill ide na posebnom pool-u, a izlaz se
+ * odmah upisuje u jedan PDF ili ZIP - u memoriji je samo nekoliko dokumenata u isto vreme.
+ */
+@Service
+public class BatchReportService {
+
+    public enum Dokument { POTVRDA_STUDIRANJA, UVERENJE_POLOZENI }
+
+    public enum Format { SPOJEN_PDF, ZIP }
+
+    private static final int SEARCH_PAGE_SIZE = 200;
+
+    private final StudentApiService api;
+    private final ReportService reportService;
+
+    private final int fetchConcurrency;
+    private final int fillWorkers;
+
+    public BatchReportService(StudentApiService api,
+                              ReportService reportService,
+                              @Value("${app.reports.batch.fetchConcurrency:6}") int fetchConcurrency,
+                              @Value("${app.reports.batch.fillWorkers:2}") int fillWorkers) {
+        this.api = api;
+        this.reportService = reportService;
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.fillWorkers = Math.max(1, fillWorkers);
+    }
+
+    /**
+     * Blokirajući poziv - namenjen da se izvrši unutar ReportJob-a.
+     * Greška za pojedinačnog studenta ne prekida ceo posao, već ulazi u summary.
+     * Izlaz ide u privremeni fajl pored target-a i premešta se na target tek kad je bar jedan
+     * dokument upisan; otkazan, pao ili prazan posao ne ostavlja (niti prepisuje) fajl.
+     */
+    public BatchSummary generate(String studProgram, Integer godina, Dokument dokument, Format format,
+                                 Path target, ReportJob<?> job) throws IOException {
+        Path abs = target.toAbsolutePath();
+        Path tmp = Files.createTempFile(abs.getParent(), abs.getFileName().toString(), ".tmp");
+        try {
+            BatchSummary summary;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                summary = write(studProgram, godina, dokument, format, out, job);
+            }
+            if (job != null) job.checkCancelled();
+
+            if (summary.ok > 0) {
+                Files.move(tmp, abs, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                summary.file = abs;
+            }
+            return summary;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private BatchSummary write(String studProgram, Integer godina, Dokument dokument, Format format,
+                               OutputStream out, ReportJob<?> job) throws IOException {
+        long start = System.currentTimeMillis();
+        BatchSummary summary = new BatchSummary();
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+
+        // fill za uverenje čeka na sledeću stranu položenih, pa ide na bounded elastic (ne na parallel)
+        Scheduler fillScheduler = Schedulers.newBoundedElastic(fillWorkers, Integer.MAX_VALUE, "batch-fill", 60, true);
+        BatchWriter writer = format == Format.ZIP ? new ZipBatchWriter(out) : new MergedPdfWriter(out);
+
+        try {
+            studenti(studProgram, godina, total)
+                    .flatMap(dto -> fetch(dto, dokument)
+                                    .onErrorResume(err -> Mono.just(Item.failed(dto, "podaci: " + err.getMessage()))),
+                            fetchConcurrency)
+                    .parallel(fillWorkers)
+                    .runOn(fillScheduler, 2)
+                    .map(item -> render(item, dokument))
+                    .sequential(2)
+                    .doOnNext(item -> {
+                        if (job != null) job.checkCancelled();
+
+                        if (item.pdf != null) {
+                            try {
+                                writer.add(item.entryName(dokument), item.pdf);
+                                summary.ok++;
+                            } catch (Exception e) {
+                                summary.fail(item.label(), "zapis: " + e.getMessage());
+                            }
+                        } else {
+                            summary.fail(item.label(), item.error);
+                        }
+
+                        int done = processed.incrementAndGet();
+                        if (job != null) {
+                            int t = Math.max(total.get(), done);
+                            job.progress((double) done / t, done + " / " + t + " studenata");
+                        }
+                    })
+                    .blockLast();
+        } finally {
+            fillScheduler.dispose();
+            writer.close();
+        }
+
+        summary.total = processed.get();
+        summary.millis = System.currentTimeMillis() - start;
+        System.out.println(">>> batch " + dokument + " " + summary);
+        return summary;
+    }
+
+    private Flux<StudentDTO> studenti(String studProgram, Integer godina, AtomicInteger total) {
+        return api.searchStudents(null, null, studProgram, godina, null, 0, SEARCH_PAGE_SIZE)
+                .expand(page -> page.getNumber() + 1 < page.getTotalPages()
+                        ? api.searchStudents(null, null, studProgram, godina, null, page.getNumber() + 1, SEARCH_PAGE_SIZE)
+                        : Mono.empty())
+                .doOnNext(page -> total.set((int) page.getTotalElements()))
+                .flatMapIterable(page -> page.getContent() == null ? List.<StudentDTO>of() : page.getContent());
+    }
+
+    private Mono<Item> fetch(StudentDTO dto, Dokument dokument) {
+        Long indeksId = dto.getIdIndeks();
+        if (indeksId == null) return Mono.just(Item.failed(dto, "student nema indeks"));
+
+        Mono<StudentIndeksResponse> mIndeks = api.getStudentIndeks(indeksId);
+        Mono<StudentProfileDTO> mProfile = api.getProfile(indeksId);
+
+        // položeni se za uverenje ne povlače ovde - fill ih čita stranu po stranu
+        return Mono.zip(mIndeks, mProfile)
+                .map(t -> new Item(dto, t.getT1(), t.getT2()));
+    }
+
+    /** Jednokratni PDF-ovi - mimo PdfCache-a, da hiljade njih ne izbace korisne unose. */
+    private Item render(Item item, Dokument dokument) {
+        if (item.error != null) return item;
+        PolozeniPagingDataSource polozeni = null;
+        try {
+            if (dokument == Dokument.POTVRDA_STUDIRANJA) {
+                item.pdf = reportService.generatePotvrdaStudiranja(item.indeks, item.profile, ReportOutput.toBuffer(), false).getBytes();
+            } else {
+                polozeni = new PolozeniPagingDataSource(api, item.indeks.getId());
+                item.pdf = reportService.generateUverenjePolozeni(item.indeks, item.profile, polozeni, ReportOutput.toBuffer(), false).getBytes();
+            }
+        } catch (Exception e) {
+            item.error = "generisanje: " + e.getMessage();
+        } finally {
+            if (polozeni != null) polozeni.close();
+        }
+        // print i ulazni podaci više nisu potrebni
+        item.profile = null;
+        return item;
+    }
+
+    // ===== izlaz =====
+
+    private interface BatchWriter {
+        void add(String entryName, byte[] pdf) throws IOException;
+        void close() throws IOException;
+    }
+
+    private static final class MergedPdfWriter implements BatchWriter {
+        private final OutputStream out;
+        private Document document;
+        private PdfCopy copy;
+
+        MergedPdfWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void add(String entryName, byte[] pdf) throws IOException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                if (document == null) {
+                    document = new Document(reader.getPageSizeWithRotation(1));
+                    copy = new PdfCopy(document, out);
+                    document.open();
+                }
+                for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                    copy.addPage(copy.getImportedPage(reader, i));
+                }
+                copy.freeReader(reader);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (document != null) document.close();
+        }
+    }
+
+    private static final class ZipBatchWriter implements BatchWriter {
+        private final ZipOutputStream zip;
+
+        ZipBatchWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+        }
+
+        @Override
+        public void add(String entryName, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.finish();
+        }
+    }
+
+    // ===== pomoćne klase =====
+
+    private static final class Item {
+        final StudentDTO dto;
+        final StudentIndeksResponse indeks;
+        StudentProfileDTO profile;
+        byte[] pdf;
+        String error;
+
+        Item(StudentDTO dto, StudentIndeksResponse indeks, StudentProfileDTO profile) {
+            this.dto = dto;
+            this.indeks = indeks;
+            this.profile = profile;
+        }
+
+        static Item failed(StudentDTO dto, String error) {
+            Item i = new Item(dto, null, null);
+            i.error = error;
+            return i;
+        }
+
+        String label() {
+            String ime = (safe(dto.getIme()) + " " + safe(dto.getPrezime())).trim();
+            return ime + " (" + safe(dto.getStudProgramOznaka()) + " " + dto.getBroj() + "/" + dto.getGodinaUpisa() + ")";
+        }
+
+        String entryName(Dokument dokument) {
+            String prefix = dokument == Dokument.POTVRDA_STUDIRANJA ? "potvrda" : "uverenje";
+            String idx = safe(dto.getStudProgramOznaka()) + "_" + dto.getBroj() + "_" + dto.getGodinaUpisa();
+            String ime = (safe(dto.getPrezime()) + "_" + safe(dto.getIme())).replaceAll("[^\\p{L}\\p{N}_-]", "");
+            return prefix + "_" + idx + "_" + ime + "_" + dto.getIdIndeks() + ".pdf";
+        }
+
+        private static String safe(String s) { return s == null ? "" : s; }
+    }
+
+    public static final class BatchSummary {
+        private int total;
+        private int ok;
+        private long millis;
+        private Path file;
+        private final List<String> greske = Collections.synchronizedList(new ArrayList<>());
+
+        void fail(String student, String reason) {
+            greske.add(student + ": " + reason);
+        }
+
+        public int getTotal() { return total; }
+        public int getOk() { return ok; }
+        public int getFailed() { return greske.size(); }
+        public long getMillis() { return millis; }
+        /** Upisan fajl, null ako nijedan dokument nije generisan. */
+        public Path getFile() { return file; }
+        public List<String> getGreske() { return new ArrayList<>(greske); }
+
+        @Override
+        public String toString() {
+            return "ukupno=" + total + " uspešno=" + ok + " neuspešno=" + getFailed() + " trajanje=" + millis + " ms";
+        }
+    }
+}
@@ -14,9 +14,11 @@ import java.util.List;
 public class ExamApiService {
 
     private final WebClient web;
+    private final ReferenceDataCache refData;
 
-    public ExamApiService(WebClient web) {
+    public ExamApiService(WebClient web, ReferenceDataCache refData) {
         this.web = web;
+        this.refData = refData;
     }
 
     // --- Ispitni rokovi ---
@@ -55,19 +57,11 @@ public class ExamApiService {
 
     // --- Pomocno za formu (ComboBox) ---
     public Mono<List<PredmetResponse>> getPredmeti() {
-        return web.get()
-                .uri("/predmeti")
-                .retrieve()
-                .bodyToFlux(PredmetResponse.class)
-                .collectList();
+        return refData.list(ReferenceDataCache.PREDMETI, "/predmeti", PredmetResponse.class);
     }
 
     public Mono<List<NastavnikResponse>> getNastavnici() {
-        return web.get()
-                .uri("/api/nastavnik/all")
-                .retrieve()
-                .bodyToFlux(NastavnikResponse.class)
-                .collectList()
+        return refData.list(ReferenceDataCache.NASTAVNICI, "/api/nastavnik/all", NastavnikResponse.class)
                 .doOnError(err -> {
                     if (err instanceof WebClientResponseException) {
                         WebClientResponseException e =
@@ -83,11 +77,7 @@ public class ExamApiService {
     }
 
     public Mono<List<SkolskaGodinaResponse>> getSkolskeGodine() {
-        return web.get()
-                .uri("/api/skolske-godine")
-                .retrieve()
-                .bodyToFlux(SkolskaGodinaResponse.class)
-                .collectList();
+        return refData.list(ReferenceDataCache.SKOLSKE_GODINE, "/api/skolske-godine", SkolskaGodinaResponse.class);
     }
 
 
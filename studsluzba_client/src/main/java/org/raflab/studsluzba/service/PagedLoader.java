@@ -0,0 +1,211 @@
+package org.raflab.studsluzba.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Straničeno učitavanje sa kešom posećenih strana i prefetch-om susednih (N+1, pa N-1).
+ * Ključ je upit + veličina strane + broj strane, pa povratak na raniju pretragu ili stranu
+ * ide iz memorije. Jedna instanca po tabeli; keš je ograničen brojem strana (LRU) i, po želji,
+ * starošću strane (ttl) - podaci koje drugi korisnici menjaju ne smeju da ostanu u memoriji celu sesiju.
+ */
+public final class PagedLoader<T> {
+
+    @FunctionalInterface
+    public interface Fetcher<T> {
+        Mono<PageResponse<T>> fetch(int page, int size);
+    }
+
+    private final int maxPages;
+    private final boolean prefetch;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Cached<T>> pages = new LinkedHashMap<>(32, 0.75f, true);
+    private final Map<String, Mono<PageResponse<T>>> inFlight = new HashMap<>();
+    private final Map<String, Disposable> prefetching = new HashMap<>();
+    private String currentQuery;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+
+    public PagedLoader(int maxPages, boolean prefetch) {
+        this(maxPages, prefetch, Duration.ZERO);
+    }
+
+    /** ttl 0 = strane važe dok ih ne izbaci LRU ili clear(). */
+    public PagedLoader(int maxPages, boolean prefetch, Duration ttl) {
+        this.maxPages = Math.max(1, maxPages);
+        this.prefetch = prefetch;
+        this.ttlNanos = ttl == null || ttl.isNegative() ? 0 : ttl.toNanos();
+    }
+
+    /** Strana iz keša (ili null), bez odlaska na server - za sinhroni prikaz na FX niti. */
+    public synchronized PageResponse<T> peek(String query, int page, int size) {
+        return fresh(key(query, page, size));
+    }
+
+    /**
+     * Strana iz keša, zahtev koji je već u letu (npr. prefetch), ili novi poziv.
+     * Kad strana stigne, u pozadini se učitavaju susedne.
+     */
+    public Mono<PageResponse<T>> page(String query, int page, int size, Fetcher<T> fetcher) {
+        return Mono.defer(() -> {
+            Mono<PageResponse<T>> source;
+            synchronized (this) {
+                switchQuery(query);
+                PageResponse<T> cached = fresh(key(query, page, size));
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    source = Mono.just(cached);
+                } else {
+                    misses.incrementAndGet();
+                    source = load(query, page, size, fetcher);
+                }
+            }
+            return source.doOnNext(resp -> prefetchAround(query, resp, size, fetcher));
+        });
+    }
+
+    /** Brisanje strana jednog upita (npr. korisnik je izričito ponovo pokrenuo pretragu). */
+    public synchronized void invalidate(String query) {
+        pages.values().removeIf(c -> c.query.equals(query));
+
+        Iterator<Map.Entry<String, Disposable>> it = prefetching.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Disposable> e = it.next();
+            if (!e.getKey().startsWith(query + "|")) continue;
+            it.remove();
+            inFlight.remove(e.getKey());
+            e.getValue().dispose();
+        }
+        // zahtev u letu pokrenut pre invalidate-a ne sme da se deli sa novim
+        inFlight.keySet().removeIf(k -> k.startsWith(query + "|"));
+    }
+
+    /** Brisanje svega (npr. posle upisa ocene ili promene studenta). */
+    public synchronized void clear() {
+        prefetching.values().forEach(Disposable::dispose);
+        prefetching.clear();
+        inFlight.clear();
+        pages.clear();
+        currentQuery = null;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getPrefetched() { return prefetched.get(); }
+
+    @Override
+    public synchronized String toString() {
+        return "strane=" + pages.size() + "/" + maxPages + " hits=" + hits + " misses=" + misses
+                + " prefetched=" + prefetched + " inFlight=" + inFlight.size();
+    }
+
+    private Mono<PageResponse<T>> load(String query, int page, int size, Fetcher<T> fetcher) {
+        String key = key(query, page, size);
+        Mono<PageResponse<T>> running = inFlight.get(key);
+        if (running != null) return running;
+
+        Object[] self = new Object[1];
+        Mono<PageResponse<T>> m = fetcher.fetch(page, size)
+                .doOnNext(resp -> store(query, key, resp))
+                .doFinally(s -> {
+                    synchronized (this) {
+                        inFlight.remove(key, self[0]);
+                    }
+                })
+                // deljen dok ga neko čeka; kad se svi odjave (novi upit, otkazan prefetch), zahtev se prekida
+                .flux().publish().refCount()
+                .next();
+        self[0] = m;
+        inFlight.put(key, m);
+        return m;
+    }
+
+    private void prefetchAround(String query, PageResponse<T> resp, int size, Fetcher<T> fetcher) {
+        if (!prefetch || resp == null) return;
+
+        int n = resp.getNumber();
+        // napred je češće od nazad
+        if (n + 1 < resp.getTotalPages()) prefetchPage(query, n + 1, size, fetcher);
+        if (n > 0) prefetchPage(query, n - 1, size, fetcher);
+    }
+
+    private synchronized void prefetchPage(String query, int page, int size, Fetcher<T> fetcher) {
+        if (!query.equals(currentQuery)) return;
+
+        String key = key(query, page, size);
+        if (fresh(key) != null || inFlight.containsKey(key)) return;
+
+        prefetched.incrementAndGet();
+        Disposable d = load(query, page, size, fetcher)
+                .doFinally(s -> {
+                    synchronized (this) {
+                        prefetching.remove(key);
+                    }
+                })
+                .subscribe(ok -> { }, err -> { });
+        // ako je fetcher završio sinhrono, nema šta da se otkazuje
+        if (inFlight.containsKey(key)) prefetching.put(key, d);
+    }
+
+    /** Novi upit: prefetch za stari više nikome ne treba. */
+    private void switchQuery(String query) {
+        if (query.equals(currentQuery)) return;
+        currentQuery = query;
+
+        Iterator<Map.Entry<String, Disposable>> it = prefetching.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Disposable> e = it.next();
+            it.remove();
+            inFlight.remove(e.getKey());
+            e.getValue().dispose();
+        }
+    }
+
+    private synchronized void store(String query, String key, PageResponse<T> resp) {
+        if (resp == null) return;
+        pages.put(key, new Cached<>(query, resp, System.nanoTime()));
+
+        Iterator<String> it = pages.keySet().iterator();
+        while (pages.size() > maxPages && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /** Strana iz keša ako nije starija od ttl-a; zastarela se izbacuje. */
+    private PageResponse<T> fresh(String key) {
+        Cached<T> c = pages.get(key);
+        if (c == null) return null;
+        if (ttlNanos > 0 && System.nanoTime() - c.storedAt > ttlNanos) {
+            pages.remove(key);
+            return null;
+        }
+        return c.page;
+    }
+
+    private static String key(String query, int page, int size) {
+        return query + "|" + size + "|" + page;
+    }
+
+    private static final class Cached<T> {
+        final String query;
+        final PageResponse<T> page;
+        final long storedAt;
+
+        Cached(String query, PageResponse<T> page, long storedAt) {
+            this.query = query;
+            this.page = page;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.raflab.studsluzba.service;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keš generisanih PDF-ova na disku, adresiran sadržajem:
+ * ključ je SHA-256 od (šablon, verzija šablona, parametri, redovi).
+ * Isti zahtev sa istim podacima vraća postojeći fajl. Veličina je ograničena,
+ * izbacuju se najdavnije korišćeni fajlovi (lastModified se osvežava pri pogotku).
+ */
+@Service
+public class PdfCache {
+
+    private static final String EXT = ".pdf";
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxBytes;
+
+    // sortirana svojstva i mape -> isti podaci uvek daju isti JSON, pa i isti hash
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToEnable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final AtomicLong totalBytes = new AtomicLong(-1);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PdfCache(@Value("${app.reports.cache.enabled:true}") boolean enabled,
+                    @Value("${app.reports.cache.dir:${user.home}/StudsluzbaPDF/.cache}") String dir,
+                    @Value("${app.reports.cache.maxMb:200}") long maxMb) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.maxBytes = Math.max(1, maxMb) * 1024 * 1024;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Ključ za dati ulaz; null ako ulaz ne može da se serijalizuje (tada se ne kešira). */
+    public String key(String template, String version, Map<String, Object> params, Object rows) {
+        try {
+            Map<String, Object> input = new LinkedHashMap<>();
+            input.put("template", template);
+            input.put("version", version);
+            input.put("params", new TreeMap<>(params));
+            input.put("rows", rows);
+
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(mapper.writeValueAsBytes(input))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            System.out.println(">>> pdf cache: ne mogu da izračunam ključ za " + template + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public byte[] get(String key) {
+        if (!enabled || key == null) return null;
+
+        Path file = dir.resolve(key + EXT);
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return pdf;
+        } catch (IOException missing) {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void put(String key, byte[] pdf) {
+        if (!enabled || key == null || pdf == null || pdf.length > maxBytes) return;
+
+        try {
+            ensureScanned();
+            Path file = dir.resolve(key + EXT);
+            if (Files.exists(file)) return;
+
+            // upis preko privremenog fajla da se nikad ne pročita polovičan PDF
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            Files.write(tmp, pdf);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (totalBytes.addAndGet(pdf.length) > maxBytes) evict();
+        } catch (IOException e) {
+            System.out.println(">>> pdf cache: upis nije uspeo: " + e.getMessage());
+        }
+    }
+
+    public void clear() {
+        for (Path p : list()) delete(p);
+        totalBytes.set(0);
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getSizeBytes() { return Math.max(0, totalBytes.get()); }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " size=" + (getSizeBytes() / 1024) + "KB/" + (maxBytes / 1024) + "KB";
+    }
+
+    // veličina se računa pri prvom upisu, iz fajlova koji su ostali od prethodnog pokretanja
+    private void ensureScanned() throws IOException {
+        if (totalBytes.get() >= 0) return;
+        synchronized (this) {
+            if (totalBytes.get() >= 0) return;
+            Files.createDirectories(dir);
+            totalBytes.set(list().stream().mapToLong(PdfCache::size).sum());
+        }
+    }
+
+    private synchronized void evict() {
+        List<Path> files = list().stream()
+                .sorted(Comparator.comparingLong(PdfCache::lastModified))
+                .collect(Collectors.toList());
+
+        long total = files.stream().mapToLong(PdfCache::size).sum();
+        // spuštamo na 90% da ne bismo izbacivali pri svakom sledećem upisu
+        long target = maxBytes * 9 / 10;
+        for (Path p : files) {
+            if (total <= target) break;
+            long size = size(p);
+            if (delete(p)) {
+                total -= size;
+                evictions.incrementAndGet();
+            }
+        }
+        totalBytes.set(total);
+    }
+
+    private List<Path> list() {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(EXT)).collect(Collectors.toList());
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static long size(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean delete(Path p) {
+        try {
+            return Files.deleteIfExists(p);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
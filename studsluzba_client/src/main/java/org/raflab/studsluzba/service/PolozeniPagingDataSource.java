@@ -0,0 +1,108 @@
+package org.raflab.studsluzba.service;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.raflab.studsluzba.controllers.response.PolozenPredmetResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * JRDataSource koji prolazi kroz sve strane /api/polozeni/{id}.
+ * Dok Jasper puni trenutnu stranu, sledeća se već povlači u pozadini,
+ * tako da su u memoriji najviše dve strane bez obzira na dužinu istorije.
+ */
+public class PolozeniPagingDataSource implements JRDataSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    private final StudentApiService api;
+    private final Long indeksId;
+    private final int pageSize;
+
+    private JRBeanCollectionDataSource current;
+    private int currentPage = -1;
+    private int totalPages = 1;
+    private long totalElements = -1;
+
+    private CompletableFuture<PageResponse<PolozenPredmetResponse>> next;
+
+    public PolozeniPagingDataSource(StudentApiService api, Long indeksId) {
+        this(api, indeksId, DEFAULT_PAGE_SIZE);
+    }
+
+    public PolozeniPagingDataSource(StudentApiService api, Long indeksId, int pageSize) {
+        this.api = api;
+        this.indeksId = indeksId;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /** Učitava prvu stranu (ako već nije) i vraća ukupan broj redova sa servera. */
+    public long getTotalElements() throws JRException {
+        if (currentPage < 0) advance();
+        return Math.max(0, totalElements);
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        if (currentPage < 0 && !advance()) return false;
+
+        while (!current.next()) {
+            if (!advance()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return current.getFieldValue(field);
+    }
+
+    /** Otkazuje eventualni prefetch (npr. kada je posao otkazan). */
+    public void close() {
+        if (next != null) next.cancel(true);
+        next = null;
+        current = null;
+    }
+
+    private boolean advance() throws JRException {
+        int wanted = currentPage + 1;
+        if (currentPage >= 0 && wanted >= totalPages) return false;
+
+        PageResponse<PolozenPredmetResponse> page = await(next != null ? next : fetch(wanted));
+        next = null;
+
+        currentPage = wanted;
+        totalPages = Math.max(1, page.getTotalPages());
+        totalElements = page.getTotalElements();
+
+        List<PolozenPredmetResponse> content = page.getContent() == null ? List.of() : page.getContent();
+        current = new JRBeanCollectionDataSource(content);
+
+        if (currentPage + 1 < totalPages) {
+            next = fetch(currentPage + 1);
+        }
+        return true;
+    }
+
+    private CompletableFuture<PageResponse<PolozenPredmetResponse>> fetch(int page) {
+        return api.getPolozeni(indeksId, page, pageSize).toFuture();
+    }
+
+    private PageResponse<PolozenPredmetResponse> await(CompletableFuture<PageResponse<PolozenPredmetResponse>> f) throws JRException {
+        try {
+            PageResponse<PolozenPredmetResponse> page = f.get();
+            if (page == null) throw new JRException("Prazan odgovor za položene (indeksId=" + indeksId + ")");
+            return page;
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new JRException("Učitavanje položenih je prekinuto", e);
+        } catch (ExecutionException e) {
+            throw new JRException("Ne mogu da učitam položene: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.raflab.studsluzba.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Potvrda o studiranju direktno preko OpenPDF-a, bez Jasper fill/export-a.
+ * Raspored prati potvrda_studiranja.jrxml (A4, margine 40, title band 140, detail band 360);
+ * fontovi i elementi se prave jednom, po dokumentu se samo upisuju parametri.
+ */
+@Service
+public class PotvrdaStudiranjaPdfRenderer {
+
+    /** Povećati pri svakoj izmeni rasporeda (ulazi u ključ keša PDF-ova). */
+    public static final String LAYOUT_VERSION = "openpdf-1";
+
+    private static final float PAGE_H = PageSize.A4.getHeight();
+    private static final float MARGIN = 40;
+    private static final float TITLE_TOP = MARGIN;
+    private static final float DETAIL_TOP = MARGIN + 140;
+
+    private final List<Box> layout;
+
+    public PotvrdaStudiranjaPdfRenderer() {
+        try {
+            // Cp1250 da bi č/ć/đ/š/ž izašli ispravno sa standardnim Helvetica fontovima
+            BaseFont regular = BaseFont.createFont(BaseFont.HELVETICA, "Cp1250", BaseFont.NOT_EMBEDDED);
+            BaseFont bold = BaseFont.createFont(BaseFont.HELVETICA_BOLD, "Cp1250", BaseFont.NOT_EMBEDDED);
+            BaseFont italic = BaseFont.createFont(BaseFont.HELVETICA_OBLIQUE, "Cp1250", BaseFont.NOT_EMBEDDED);
+
+            this.layout = List.of(
+                    Box.text(TITLE_TOP, 0, 0, 515, 30, "POTVRDA O STUDIRANJU", new Font(bold, 18), Element.ALIGN_CENTER, true),
+                    Box.text(TITLE_TOP, 0, 42, 515, 18, "Studentska služba", new Font(regular, 11), Element.ALIGN_CENTER, true),
+                    Box.line(TITLE_TOP, 0, 75, 515),
+                    Box.field(TITLE_TOP, 0, 95, 515, 20, "datum", "Datum: ", new Font(italic, 10), Element.ALIGN_RIGHT, true),
+
+                    Box.text(DETAIL_TOP, 0, 10, 515, 18, "Ovim se potvrđuje da je student:", new Font(bold, 12), Element.ALIGN_LEFT, false),
+                    Box.field(DETAIL_TOP, 0, 40, 515, 22, "imePrezime", "", new Font(bold, 14), Element.ALIGN_LEFT, false),
+
+                    Box.text(DETAIL_TOP, 0, 80, 120, 18, "Broj indeksa:", new Font(bold, 11), Element.ALIGN_LEFT, false),
+                    Box.field(DETAIL_TOP, 130, 80, 385, 18, "indeks", "", new Font(regular, 11), Element.ALIGN_LEFT, false),
+                    Box.text(DETAIL_TOP, 0, 110, 120, 18, "Studijski program:", new Font(bold, 11), Element.ALIGN_LEFT, false),
+                    Box.field(DETAIL_TOP, 130, 110, 385, 18, "program", "", new Font(regular, 11), Element.ALIGN_LEFT, false),
+                    Box.text(DETAIL_TOP, 0, 140, 120, 18, "Ostvareno ESPB:", new Font(bold, 11), Element.ALIGN_LEFT, false),
+                    Box.field(DETAIL_TOP, 130, 140, 385, 18, "espb", "", new Font(regular, 11), Element.ALIGN_LEFT, false),
+
+                    Box.paragraph(DETAIL_TOP, 0, 190, 515, 80,
+                            "Potvrda se izdaje na zahtev studenta radi ostvarivanja prava iz studentskog statusa.",
+                            new Font(regular, 11)),
+
+                    Box.line(DETAIL_TOP, 0, 300, 515),
+                    Box.text(DETAIL_TOP, 0, 315, 250, 18, "Mesto: _____________________", new Font(regular, 10), Element.ALIGN_LEFT, false),
+                    Box.text(DETAIL_TOP, 265, 315, 250, 18, "Potpis i pečat: _____________________", new Font(regular, 10), Element.ALIGN_RIGHT, false)
+            );
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Ne mogu da učitam fontove za potvrdu: " + e.getMessage(), e);
+        }
+    }
+
+    /** Parametri su isti kao za jrxml (imePrezime, indeks, program, datum, espb). */
+    public void render(Map<String, Object> params, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4, MARGIN, MARGIN, MARGIN, MARGIN);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.addTitle("potvrda_studiranja");
+            document.open();
+
+            PdfContentByte cb = writer.getDirectContent();
+            for (Box b : layout) b.draw(cb, params);
+        } catch (DocumentException e) {
+            throw new IOException("Ne mogu da napravim potvrdu: " + e.getMessage(), e);
+        } finally {
+            if (document.isOpen()) document.close();
+        }
+    }
+
+    private static final class Box {
+        enum Kind { TEXT, FIELD, PARAGRAPH, LINE }
+
+        final Kind kind;
+        final float x;
+        final float top;      // u PDF koordinatama (y raste naviše)
+        final float width;
+        final float height;
+        final String text;    // statičan tekst ili prefiks polja
+        final String param;
+        final Font font;
+        final int align;
+        final float baseline;
+
+        private Box(Kind kind, float bandTop, float x, float y, float width, float height,
+                    String text, String param, Font font, int align, boolean middle) {
+            this.kind = kind;
+            this.x = MARGIN + x;
+            this.top = PAGE_H - (bandTop + y);
+            this.width = width;
+            this.height = height;
+            this.text = text;
+            this.param = param;
+            this.font = font;
+            this.align = align;
+
+            float size = font == null ? 0 : font.getSize();
+            // jasper: Middle centrira liniju u visini elementa, Top je kači uz gornju ivicu
+            this.baseline = middle ? top - (height + size * 0.7f) / 2 : top - size;
+        }
+
+        static Box text(float bandTop, float x, float y, float w, float h, String text, Font font, int align, boolean middle) {
+            return new Box(Kind.TEXT, bandTop, x, y, w, h, text, null, font, align, middle);
+        }
+
+        static Box field(float bandTop, float x, float y, float w, float h, String param, String prefix, Font font, int align, boolean middle) {
+            return new Box(Kind.FIELD, bandTop, x, y, w, h, prefix, param, font, align, middle);
+        }
+
+        static Box paragraph(float bandTop, float x, float y, float w, float h, String text, Font font) {
+            return new Box(Kind.PARAGRAPH, bandTop, x, y, w, h, text, null, font, Element.ALIGN_LEFT, false);
+        }
+
+        static Box line(float bandTop, float x, float y, float w) {
+            return new Box(Kind.LINE, bandTop, x, y, w, 1, null, null, null, Element.ALIGN_LEFT, false);
+        }
+
+        void draw(PdfContentByte cb, Map<String, Object> params) throws DocumentException {
+            switch (kind) {
+                case LINE:
+                    cb.setLineWidth(1f);
+                    cb.moveTo(x, top);
+                    cb.lineTo(x + width, top);
+                    cb.stroke();
+                    break;
+                case PARAGRAPH:
+                    ColumnText ct = new ColumnText(cb);
+                    ct.setSimpleColumn(new Phrase(text, font), x, top - height, x + width, top, font.getSize() * 1.2f, align);
+                    ct.go();
+                    break;
+                default:
+                    String s = kind == Kind.TEXT ? text : text + value(params.get(param));
+                    ColumnText.showTextAligned(cb, align, new Phrase(s, font), anchorX(), baseline, 0);
+            }
+        }
+
+        private float anchorX() {
+            if (align == Element.ALIGN_CENTER) return x + width / 2;
+            if (align == Element.ALIGN_RIGHT) return x + width;
+            return x;
+        }
+
+        private static String value(Object v) {
+            return v == null ? "" : String.valueOf(v);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.raflab.studsluzba.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spekulativno učitavanje indeksa + profila za studenta na kog je službenik verovatno krenuo
+ * (selektovan/hover red, jedini rezultat pretrage). Rezultat završi u StudentProfileCache,
+ * a ako je zahtev još u letu kad se profil otvori, RequestCoalescingFilter ga spaja sa prefetch-om.
+ * Najviše maxConcurrent istovremeno; ostali čekaju u redu (najnoviji prvi) i mogu se otkazati.
+ */
+@Service
+public class ProfilePrefetcher {
+
+    private final StudentApiService api;
+    private final StudentProfileCache profileCache;
+    private final boolean enabled;
+    private final int maxConcurrent;
+
+    private final Deque<Handle> queued = new ArrayDeque<>();
+    private final Map<Long, Handle> byId = new HashMap<>();
+    private int running;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public ProfilePrefetcher(StudentApiService api,
+                             StudentProfileCache profileCache,
+                             @Value("${app.prefetch.enabled:true}") boolean enabled,
+                             @Value("${app.prefetch.maxConcurrent:2}") int maxConcurrent) {
+        this.api = api;
+        this.profileCache = profileCache;
+        this.enabled = enabled;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    /** Vraća handle za otkazivanje; null ako nema šta da se radi (isključeno ili već u kešu). */
+    public synchronized Handle prefetch(Long indeksId) {
+        if (!enabled || indeksId == null) return null;
+        if (profileCache.contains(indeksId)) {
+            skipped.incrementAndGet();
+            return null;
+        }
+
+        Handle h = byId.get(indeksId);
+        if (h != null) {
+            h.refs++;
+            if (queued.remove(h)) queued.addFirst(h);
+            return h;
+        }
+
+        h = new Handle(indeksId);
+        byId.put(indeksId, h);
+        queued.addFirst(h);
+        drain();
+        return h;
+    }
+
+    /** Otkazuje prefetch ako ga više niko ne čeka. Bezbedno i za null/već završen handle. */
+    public synchronized void cancel(Handle h) {
+        if (h == null || h.done || --h.refs > 0) return;
+
+        h.done = true;
+        byId.remove(h.indeksId, h);
+        cancelled.incrementAndGet();
+        if (!queued.remove(h) && h.subscription != null) {
+            h.subscription.dispose();
+            running--;
+            drain();
+        }
+    }
+
+    public long getStarted() { return started.get(); }
+    public long getCompleted() { return completed.get(); }
+    public long getCancelled() { return cancelled.get(); }
+    public long getSkipped() { return skipped.get(); }
+
+    @Override
+    public synchronized String toString() {
+        return "running=" + running + " queued=" + queued.size() + " started=" + started
+                + " completed=" + completed + " cancelled=" + cancelled + " skipped=" + skipped;
+    }
+
+    private void drain() {
+        while (running < maxConcurrent && !queued.isEmpty()) {
+            Handle h = queued.pollFirst();
+            running++;
+            started.incrementAndGet();
+            h.subscription = Mono.zip(api.getStudentIndeks(h.indeksId), api.getProfile(h.indeksId))
+                    .subscribe(ok -> { }, err -> finished(h), () -> finished(h));
+        }
+    }
+
+    private synchronized void finished(Handle h) {
+        if (h.done) return;
+        h.done = true;
+        byId.remove(h.indeksId, h);
+        completed.incrementAndGet();
+        running--;
+        drain();
+    }
+
+    public static final class Handle {
+        private final Long indeksId;
+        private int refs = 1;
+        private boolean done;
+        private Disposable subscription;
+
+        private Handle(Long indeksId) {
+            this.indeksId = indeksId;
+        }
+    }
+}
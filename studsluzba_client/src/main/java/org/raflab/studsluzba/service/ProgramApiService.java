@@ -15,18 +15,16 @@ import java.util.List;
 public class ProgramApiService {
 
     private final WebClient web;
+    private final ReferenceDataCache refData;
 
-    public ProgramApiService(WebClient web) {
+    public ProgramApiService(WebClient web, ReferenceDataCache refData) {
         this.web = web;
+        this.refData = refData;
     }
 
     // 1) svi programi
     public Mono<List<StudijskiProgramResponse>> getStudijskiProgrami() {
-        return web.get()
-                .uri("/studijski-programi")
-                .retrieve()
-                .bodyToFlux(StudijskiProgramResponse.class)
-                .collectList();
+        return refData.list(ReferenceDataCache.STUDIJSKI_PROGRAMI, "/studijski-programi", StudijskiProgramResponse.class);
     }
 
     // 2) predmeti na programu
@@ -42,11 +40,7 @@ public class ProgramApiService {
 
     // 3) svi predmeti (za ComboBox u dodavanju)
     public Mono<List<PredmetResponse>> getSviPredmeti() {
-        return web.get()
-                .uri("/predmeti")
-                .retrieve()
-                .bodyToFlux(PredmetResponse.class)
-                .collectList();
+        return refData.list(ReferenceDataCache.PREDMETI, "/predmeti", PredmetResponse.class);
     }
 
     // 4) dodaj predmet na program
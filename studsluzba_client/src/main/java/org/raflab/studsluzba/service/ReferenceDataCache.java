@@ -0,0 +1,181 @@
+package org.raflab.studsluzba.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keš za šifarnike koji se retko menjaju (srednje škole, školske godine, predmeti, nastavnici, programi).
+ * - svež podatak (mlađi od TTL-a) se vraća odmah, bez poziva
+ * - zastareo (do maxStale) se vraća odmah, a u pozadini se proverava sa If-None-Match / If-Modified-Since;
+ *   ako server vrati 304, nema ni prenosa ni JSON dekodiranja
+ * - prazan ili previše star keš -> čeka se server
+ * TTL po ključu: app.cache.ref.ttlSeconds.&lt;ključ&gt;, podrazumevano app.cache.ref.ttlSeconds.
+ */
+@Service
+public class ReferenceDataCache {
+
+    public static final String SREDNJE_SKOLE = "srednje-skole";
+    public static final String SKOLSKE_GODINE = "skolske-godine";
+    public static final String PREDMETI = "predmeti";
+    public static final String NASTAVNICI = "nastavnici";
+    public static final String STUDIJSKI_PROGRAMI = "studijski-programi";
+
+    private final WebClient web;
+    private final Environment env;
+    private final long defaultTtlMillis;
+    private final long maxStaleMillis;
+
+    private final Map<String, Entry<?>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong reloaded = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public ReferenceDataCache(WebClient web, Environment env,
+                              @Value("${app.cache.ref.ttlSeconds:300}") long ttlSeconds,
+                              @Value("${app.cache.ref.maxStaleSeconds:86400}") long maxStaleSeconds) {
+        this.web = web;
+        this.env = env;
+        this.defaultTtlMillis = Math.max(0, ttlSeconds) * 1000;
+        this.maxStaleMillis = Math.max(0, maxStaleSeconds) * 1000;
+    }
+
+    /** Lista sa datog URI-ja, keširana pod ključem (isti ključ = isti podaci, i kad ih traže različiti servisi). */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<List<T>> list(String key, String uri, Class<T> type) {
+        Entry<T> e = (Entry<T>) entries.computeIfAbsent(key, k -> new Entry<>(k, uri, type));
+        return Mono.defer(() -> e.get()).map(ArrayList::new);
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getStaleHits() { return staleHits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getNotModified() { return notModified.get(); }
+    public long getReloaded() { return reloaded.get(); }
+    public long getErrors() { return errors.get(); }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + " stale=" + staleHits + " misses=" + misses
+                + " 304=" + notModified + " 200=" + reloaded + " errors=" + errors;
+    }
+
+    private long ttlFor(String key) {
+        Long ttl = env.getProperty("app.cache.ref.ttlSeconds." + key, Long.class);
+        return ttl != null ? Math.max(0, ttl) * 1000 : defaultTtlMillis;
+    }
+
+    private final class Entry<T> {
+        final String key;
+        final String uri;
+        final Class<T> type;
+        final long ttl;
+
+        volatile List<T> data;
+        volatile String etag;
+        volatile String lastModified;
+        volatile long fetchedAt;
+
+        // jedan zahtev ka serveru u isto vreme, bez obzira koliko ekrana traži isti šifarnik
+        private Mono<List<T>> inFlight;
+
+        Entry(String key, String uri, Class<T> type) {
+            this.key = key;
+            this.uri = uri;
+            this.type = type;
+            this.ttl = ttlFor(key);
+        }
+
+        Mono<List<T>> get() {
+            List<T> d = data;
+            long age = System.currentTimeMillis() - fetchedAt;
+
+            if (d != null && age < ttl) {
+                hits.incrementAndGet();
+                return Mono.just(d);
+            }
+            if (d != null && age < ttl + maxStaleMillis) {
+                staleHits.incrementAndGet();
+                revalidate().subscribe(x -> { }, err -> { });
+                return Mono.just(d);
+            }
+            misses.incrementAndGet();
+            return revalidate();
+        }
+
+        synchronized Mono<List<T>> revalidate() {
+            if (inFlight != null) return inFlight;
+
+            Mono<List<T>> m = web.get()
+                    .uri(uri)
+                    .headers(h -> {
+                        if (data != null && etag != null) h.setIfNoneMatch(etag);
+                        if (data != null && lastModified != null) h.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                    })
+                    .exchange()
+                    .flatMap(this::handle)
+                    .doOnError(err -> {
+                        errors.incrementAndGet();
+                        System.out.println(">>> ref cache " + key + " greška: " + err.getMessage());
+                    })
+                    // ako server nije dostupan, a imamo bilo kakve podatke - koristimo njih
+                    .onErrorResume(err -> data != null ? Mono.just(data) : Mono.error(err))
+                    .doFinally(s -> clearInFlight())
+                    .cache();
+
+            inFlight = m;
+            return m;
+        }
+
+        private synchronized void clearInFlight() {
+            inFlight = null;
+        }
+
+        private Mono<List<T>> handle(ClientResponse resp) {
+            if (resp.statusCode() == HttpStatus.NOT_MODIFIED && data != null) {
+                notModified.incrementAndGet();
+                fetchedAt = System.currentTimeMillis();
+                return resp.releaseBody().then(Mono.fromSupplier(() -> data));
+            }
+            if (resp.statusCode().isError()) {
+                return resp.createException().flatMap(Mono::error);
+            }
+
+            String newEtag = resp.headers().asHttpHeaders().getETag();
+            String newLastModified = resp.headers().asHttpHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+            return resp.bodyToFlux(type)
+                    .collectList()
+                    .map(list -> {
+                        reloaded.incrementAndGet();
+                        data = list;
+                        etag = newEtag;
+                        lastModified = newLastModified;
+                        fetchedAt = System.currentTimeMillis();
+                        return list;
+                    });
+        }
+    }
+}
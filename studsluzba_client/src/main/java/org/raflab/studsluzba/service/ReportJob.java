@@ -0,0 +1,138 @@
+package org.raflab.studsluzba.service;
+
+import net.sf.jasperreports.engine.fill.JRFillInterruptedException;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Jedan zadatak u redu za generisanje izveštaja.
+ * Task javlja napredak preko progress(), a proverava otkazivanje preko checkCancelled().
+ */
+public class ReportJob<T> implements Comparable<ReportJob<?>> {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    private final long seq;
+    private final String name;
+    private final ReportJobService.Priority priority;
+    private final ReportJobService.Task<T> task;
+    private final Consumer<T> onDone;
+    private final Consumer<Throwable> onError;
+    private final ReportJobService owner;
+
+    private volatile State state = State.QUEUED;
+    private volatile double progress;
+    private volatile String message = "Na čekanju";
+    private volatile boolean cancelled;
+
+    // worker se postavlja/briše i interrupt šalje samo pod lock-om - interrupt ne sme da stigne
+    // do pool niti kad je ona već prešla na sledeći posao
+    private final Object lock = new Object();
+    private Thread worker;
+
+    ReportJob(long seq, String name, ReportJobService.Priority priority, ReportJobService.Task<T> task,
+              Consumer<T> onDone, Consumer<Throwable> onError, ReportJobService owner) {
+        this.seq = seq;
+        this.name = name;
+        this.priority = priority;
+        this.task = task;
+        this.onDone = onDone;
+        this.onError = onError;
+        this.owner = owner;
+    }
+
+    public String getName() { return name; }
+    public ReportJobService.Priority getPriority() { return priority; }
+    public State getState() { return state; }
+    public double getProgress() { return progress; }
+    public String getMessage() { return message; }
+    public boolean isCancelled() { return cancelled; }
+
+    public boolean isActive() {
+        return state == State.QUEUED || state == State.RUNNING;
+    }
+
+    /** Poziva task iz radne niti; 0..1. */
+    public void progress(double value, String msg) {
+        checkCancelled();
+        this.progress = Math.max(0, Math.min(1, value));
+        if (msg != null) this.message = msg;
+        owner.fireChanged(this);
+    }
+
+    public void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException(name + " je otkazan");
+        }
+    }
+
+    public void cancel() {
+        if (!isActive()) return;
+
+        boolean running;
+        synchronized (lock) {
+            cancelled = true;
+            running = worker != null;
+            // Jasper filler i block() reaguju na interrupt
+            if (running) worker.interrupt();
+        }
+        // posao koji se upravo završio (worker već null) zadržava svoje stanje
+        if (!running && state == State.QUEUED) finish(State.CANCELLED, "Otkazano");
+    }
+
+    void run() {
+        synchronized (lock) {
+            if (cancelled) return;
+            worker = Thread.currentThread();
+        }
+        state = State.RUNNING;
+        message = "U toku";
+        owner.fireChanged(this);
+
+        try {
+            T result = task.run(this);
+            checkCancelled();
+            progress = 1;
+            finish(State.DONE, "Završeno");
+            owner.dispatch(() -> { if (onDone != null) onDone.accept(result); });
+        } catch (Throwable err) {
+            if (cancelled || err instanceof CancellationException || isInterruption(err)) {
+                finish(State.CANCELLED, "Otkazano");
+            } else {
+                finish(State.FAILED, err.getMessage());
+                owner.dispatch(() -> { if (onError != null) onError.accept(err); });
+            }
+        } finally {
+            synchronized (lock) {
+                worker = null;
+                Thread.interrupted(); // ne prenosi interrupt na sledeći posao u istoj niti
+            }
+        }
+    }
+
+    private void finish(State s, String msg) {
+        state = s;
+        message = msg;
+        owner.fireChanged(this);
+    }
+
+    private static boolean isInterruption(Throwable err) {
+        for (Throwable t = err; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException) return true;
+            if (t instanceof JRFillInterruptedException) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int compareTo(ReportJob<?> o) {
+        int c = Integer.compare(priority.ordinal(), o.priority.ordinal());
+        return c != 0 ? c : Long.compare(seq, o.seq);
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + state + ", " + Math.round(progress * 100) + "%]";
+    }
+}
@@ -0,0 +1,113 @@
+package org.raflab.studsluzba.service;
+
+import javafx.application.Platform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Red za generisanje izveštaja van JavaFX niti.
+ * Ograničen broj radnih niti, prioriteti, napredak i otkazivanje po poslu.
+ * Svi callback-ovi (onDone/onError/listeneri) se izvršavaju na FX niti.
+ */
+@Service
+public class ReportJobService {
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(ReportJob<T> job) throws Exception;
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong seq = new AtomicLong();
+
+    private final List<ReportJob<?>> active = new CopyOnWriteArrayList<>();
+    private final List<Consumer<ReportJob<?>>> listeners = new CopyOnWriteArrayList<>();
+
+    public ReportJobService(@Value("${app.reports.workers:2}") int workers) {
+        int n = Math.max(1, workers);
+        AtomicInteger threadNo = new AtomicInteger();
+
+        this.pool = new ThreadPoolExecutor(n, n, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "report-worker-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> ReportJob<T> submit(String name, Priority priority, Task<T> task,
+                                   Consumer<T> onDone, Consumer<Throwable> onError) {
+        ReportJob<T> job = new ReportJob<>(seq.incrementAndGet(), name,
+                priority == null ? Priority.NORMAL : priority, task, onDone, onError, this);
+        active.add(job);
+        fireChanged(job);
+        pool.execute(new QueuedJob(job));
+        return job;
+    }
+
+    /** Listener se zove na FX niti za svaku promenu stanja/napretka bilo kog posla. */
+    public void addListener(Consumer<ReportJob<?>> listener) {
+        listeners.add(listener);
+    }
+
+    public List<ReportJob<?>> getActiveJobs() {
+        return new ArrayList<>(active);
+    }
+
+    public void cancelAll() {
+        for (ReportJob<?> j : active) j.cancel();
+    }
+
+    void fireChanged(ReportJob<?> job) {
+        if (!job.isActive()) active.remove(job);
+        if (listeners.isEmpty()) return;
+        dispatch(() -> listeners.forEach(l -> l.accept(job)));
+    }
+
+    void dispatch(Runnable r) {
+        try {
+            Platform.runLater(r);
+        } catch (IllegalStateException notStarted) {
+            // FX toolkit nije podignut (npr. batch/benchmark bez UI-ja)
+            r.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelAll();
+        pool.shutdownNow();
+    }
+
+    private static final class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final ReportJob<?> job;
+
+        QueuedJob(ReportJob<?> job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            job.run();
+        }
+
+        @Override
+        public int compareTo(QueuedJob o) {
+            return job.compareTo(o.job);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.raflab.studsluzba.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Odredište za generisan PDF: proizvoljan OutputStream, bafer u memoriji ili folder na disku.
+ */
+public final class ReportOutput {
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+
+    private final OutputStream stream;
+    private final Path dir;
+
+    private ByteArrayOutputStream buffer;
+    private Path file;
+
+    private ReportOutput(OutputStream stream, Path dir) {
+        this.stream = stream;
+        this.dir = dir;
+    }
+
+    /** Upis u tuđi stream; stream se ne zatvara. */
+    public static ReportOutput toStream(OutputStream out) {
+        return new ReportOutput(out, null);
+    }
+
+    /** Upis u memoriju; rezultat preko getBytes(). */
+    public static ReportOutput toBuffer() {
+        return new ReportOutput(null, null);
+    }
+
+    /** Upis u novi fajl u datom folderu; rezultat preko getFile(). */
+    public static ReportOutput toDirectory(Path dir) {
+        return new ReportOutput(null, dir);
+    }
+
+    public byte[] getBytes() {
+        return buffer == null ? null : buffer.toByteArray();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    void write(String prefix, byte[] pdf) throws IOException {
+        try (OutputStream os = open(prefix)) {
+            os.write(pdf);
+        }
+    }
+
+    OutputStream open(String prefix) throws IOException {
+        if (stream != null) {
+            // da exporter ne zatvori pozivaočev stream
+            return new FilterOutputStream(stream) {
+                @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); }
+                @Override public void close() throws IOException { flush(); }
+            };
+        }
+        if (dir != null) {
+            if (!Files.exists(dir)) Files.createDirectories(dir);
+            file = dir.resolve(prefix + "_" + LocalDateTime.now().format(TS) + ".pdf");
+            return Files.newOutputStream(file);
+        }
+        buffer = new ByteArrayOutputStream(64 * 1024);
+        return buffer;
+    }
+}
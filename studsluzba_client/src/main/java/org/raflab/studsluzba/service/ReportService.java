@@ -2,64 +2,295 @@ package org.raflab.studsluzba.service;
 
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
 import org.raflab.studsluzba.controllers.response.PolozenPredmetResponse;
 import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
 import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 @Service
 public class ReportService {
 
     private final DateTimeFormatter df = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
+    private static final long MB = 1024 * 1024;
+
+    private final ReportTemplateRegistry templates;
+    private final PotvrdaStudiranjaPdfRenderer potvrdaPdf;
+    private final PdfCache pdfCache;
+    private final Path outputDir;
+
+    // virtualizacija: strane preko maxPagesInMemory idu u swap fajl umesto na heap
+    private final boolean virtualizerEnabled;
+    private final long virtualizerRowThreshold;
+    private final int virtualizerMinFreeHeapPct;
+    private final int virtualizerMaxPagesInMemory;
+    private final Path swapDir;
+
+    // virtualizer mora da živi dok se print ne izveze, posle se briše swap fajl
+    private final Map<JasperPrint, JRSwapFileVirtualizer> virtualized = Collections.synchronizedMap(new WeakHashMap<>());
+    private final MemoryStats memoryStats = new MemoryStats();
+
+    public ReportService(ReportTemplateRegistry templates,
+                         PotvrdaStudiranjaPdfRenderer potvrdaPdf,
+                         PdfCache pdfCache,
+                         @Value("${app.reports.outputDir:${user.home}/StudsluzbaPDF}") String outputDir,
+                         @Value("${app.reports.virtualizer.enabled:true}") boolean virtualizerEnabled,
+                         @Value("${app.reports.virtualizer.rowThreshold:1000}") long virtualizerRowThreshold,
+                         @Value("${app.reports.virtualizer.minFreeHeapPct:20}") int virtualizerMinFreeHeapPct,
+                         @Value("${app.reports.virtualizer.maxPagesInMemory:20}") int virtualizerMaxPagesInMemory,
+                         @Value("${app.reports.virtualizer.swapDir:}") String swapDir) {
+        this.templates = templates;
+        this.potvrdaPdf = potvrdaPdf;
+        this.pdfCache = pdfCache;
+        this.outputDir = Path.of(outputDir);
+        this.virtualizerEnabled = virtualizerEnabled;
+        this.virtualizerRowThreshold = Math.max(0, virtualizerRowThreshold);
+        this.virtualizerMinFreeHeapPct = Math.max(0, Math.min(100, virtualizerMinFreeHeapPct));
+        this.virtualizerMaxPagesInMemory = Math.max(1, virtualizerMaxPagesInMemory);
+        this.swapDir = Path.of(swapDir == null || swapDir.isBlank() ? System.getProperty("java.io.tmpdir") : swapDir.trim());
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
     public Path generatePotvrdaStudiranja(StudentIndeksResponse indeks, StudentProfileDTO profile) throws Exception {
-        InputStream jrxml = getClass().getResourceAsStream("/reports/potvrda_studiranja.jrxml");
-        JasperReport report = JasperCompileManager.compileReport(jrxml);
+        return generatePotvrdaStudiranja(indeks, profile, ReportOutput.toDirectory(outputDir)).getFile();
+    }
 
+    public ReportOutput generatePotvrdaStudiranja(StudentIndeksResponse indeks, StudentProfileDTO profile, ReportOutput out) throws Exception {
+        return generatePotvrdaStudiranja(indeks, profile, out, true);
+    }
+
+    /** cacheable=false za jednokratne PDF-ove (masovno generisanje) - ne ulaze u PdfCache i ne izbacuju korisne. */
+    public ReportOutput generatePotvrdaStudiranja(StudentIndeksResponse indeks, StudentProfileDTO profile, ReportOutput out,
+                                                 boolean cacheable) throws Exception {
+        String template = ReportTemplateRegistry.POTVRDA_STUDIRANJA;
         Map<String, Object> params = baseParams(indeks, profile);
+        boolean openPdf = templates.rendererFor(template) == ReportTemplateRegistry.Renderer.OPENPDF;
 
-        // potvrdа nema detaljne stavke, ali jasper traži datasource
-        JRDataSource ds = new net.sf.jasperreports.engine.JREmptyDataSource(1);
+        String version = openPdf ? PotvrdaStudiranjaPdfRenderer.LAYOUT_VERSION : templates.version(template);
+        String key = cacheable ? cacheKey(template, version, params, List.of()) : null;
+        return cached(key, template, out, buf -> {
+            if (openPdf) renderPotvrdaOpenPdf(params, buf);
+            else export(fill(template, params, new JREmptyDataSource(1)), buf, template);
+        });
+    }
 
+    /** Gotov PDF potvrde, preko renderera koji je podešen za šablon. */
+    public byte[] potvrdaStudiranjaPdf(StudentIndeksResponse indeks, StudentProfileDTO profile) throws Exception {
+        return generatePotvrdaStudiranja(indeks, profile, ReportOutput.toBuffer()).getBytes();
+    }
 
-        JasperPrint print = JasperFillManager.fillReport(report, params, ds);
+    /** Brza putanja bez Jasper-a - potvrda nema detaljne stavke, pa je dovoljan fiksan raspored. */
+    public void renderPotvrdaOpenPdf(StudentIndeksResponse indeks, StudentProfileDTO profile, ReportOutput out) throws IOException {
+        renderPotvrdaOpenPdf(baseParams(indeks, profile), out);
+    }
 
-        Path out = createOutFile("potvrda_studiranja");
-        JasperExportManager.exportReportToPdfFile(print, out.toString());
-        return out;
+    private void renderPotvrdaOpenPdf(Map<String, Object> params, ReportOutput out) throws IOException {
+        long start = System.nanoTime();
+        try (OutputStream os = out.open(ReportTemplateRegistry.POTVRDA_STUDIRANJA)) {
+            potvrdaPdf.render(params, os);
+        }
+        System.out.println(">>> report " + ReportTemplateRegistry.POTVRDA_STUDIRANJA + " openpdf "
+                + ((System.nanoTime() - start) / 1_000_000) + " ms");
+    }
+
+    public Path generateUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, List<PolozenPredmetResponse> polozeni) throws Exception {
+        return generateUverenjePolozeni(indeks, profile, new JRBeanCollectionDataSource(polozeni == null ? List.of() : polozeni));
+    }
 
+    /** Varijanta sa proizvoljnim izvorom redova (npr. PolozeniPagingDataSource). */
+    public Path generateUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, JRDataSource polozeni) throws Exception {
+        return generateUverenjePolozeni(indeks, profile, polozeni, ReportOutput.toDirectory(outputDir)).getFile();
     }
-    private Path createOutFile(String prefix) throws Exception {
-        Path dir = Path.of("C:\\StudsluzbaPDF");
-        if (!Files.exists(dir)) Files.createDirectories(dir);
 
-        String ts = java.time.LocalDateTime.now()
-                .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        return dir.resolve(prefix + "_" + ts + ".pdf");
+    public ReportOutput generateUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, JRDataSource polozeni, ReportOutput out) throws Exception {
+        return generateUverenjePolozeni(indeks, profile, polozeni, out, true);
     }
 
-    public Path generateUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, List<PolozenPredmetResponse> polozeni) throws Exception {
-        InputStream jrxml = getClass().getResourceAsStream("/reports/uverenje_polozeni.jrxml");
-        JasperReport report = JasperCompileManager.compileReport(jrxml);
+    public ReportOutput generateUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, JRDataSource polozeni,
+                                                ReportOutput out, boolean cacheable) throws Exception {
+        String template = ReportTemplateRegistry.UVERENJE_POLOZENI;
+        Map<String, Object> params = baseParams(indeks, profile);
+
+        String key = cacheable ? cacheKey(template, templates.version(template), params, rowsFingerprint(polozeni)) : null;
+        return cached(key, template, out, buf -> export(fill(template, params, polozeni), buf, template));
+    }
 
+    public JasperPrint fillPotvrdaStudiranja(StudentIndeksResponse indeks, StudentProfileDTO profile) throws JRException {
         Map<String, Object> params = baseParams(indeks, profile);
 
-        JRDataSource ds = new JRBeanCollectionDataSource(polozeni == null ? List.of() : polozeni);
-        JasperPrint print = JasperFillManager.fillReport(report, params, ds);
+        // potvrdа nema detaljne stavke, ali jasper traži datasource
+        JRDataSource ds = new JREmptyDataSource(1);
+
+        return fill(ReportTemplateRegistry.POTVRDA_STUDIRANJA, params, ds);
+    }
+
+    public JasperPrint fillUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, List<PolozenPredmetResponse> polozeni) throws JRException {
+        return fillUverenjePolozeni(indeks, profile, new JRBeanCollectionDataSource(polozeni == null ? List.of() : polozeni));
+    }
+
+    public JasperPrint fillUverenjePolozeni(StudentIndeksResponse indeks, StudentProfileDTO profile, JRDataSource polozeni) throws JRException {
+        Map<String, Object> params = baseParams(indeks, profile);
+        return fill(ReportTemplateRegistry.UVERENJE_POLOZENI, params, polozeni);
+    }
+
+    public byte[] exportPdf(JasperPrint print) throws JRException, IOException {
+        ReportOutput out = ReportOutput.toBuffer();
+        export(print, out, print.getName());
+        return out.getBytes();
+    }
+
+    public void export(JasperPrint print, ReportOutput out, String prefix) throws JRException, IOException {
+        long start = System.nanoTime();
+        try (OutputStream os = out.open(prefix)) {
+            JasperExportManager.exportReportToPdfStream(print, os);
+        } finally {
+            release(print);
+        }
+        System.out.println(">>> report " + prefix + " export " + ((System.nanoTime() - start) / 1_000_000) + " ms");
+    }
+
+    /**
+     * Briše swap fajl virtualizovanog izveštaja. export() ga zove sam;
+     * ručno samo ako se print popunjava a ne izvozi.
+     */
+    public void release(JasperPrint print) {
+        JRSwapFileVirtualizer v = virtualized.remove(print);
+        if (v != null) v.cleanup();
+    }
+
+    @FunctionalInterface
+    private interface PdfTask {
+        void writeTo(ReportOutput out) throws Exception;
+    }
+
+    /**
+     * Ako PDF sa istim ključem postoji u kešu, samo se prepiše u out;
+     * inače se generiše u bafer, upiše u keš pa u out.
+     */
+    private ReportOutput cached(String key, String template, ReportOutput out, PdfTask task) throws Exception {
+        if (key == null) {
+            task.writeTo(out);
+            return out;
+        }
 
-        Path out = createOutFile("uverenje_polozeni");
-        JasperExportManager.exportReportToPdfFile(print, out.toString());
+        byte[] pdf = pdfCache.get(key);
+        if (pdf != null) {
+            System.out.println(">>> report " + template + " iz keša (" + key.substring(0, 12) + ")");
+        } else {
+            ReportOutput buf = ReportOutput.toBuffer();
+            task.writeTo(buf);
+            pdf = buf.getBytes();
+            pdfCache.put(key, pdf);
+        }
+        out.write(template, pdf);
         return out;
+    }
+
+    private String cacheKey(String template, String version, Map<String, Object> params, Object rows) {
+        if (!pdfCache.isEnabled() || rows == null) return null;
+        return pdfCache.key(template, version, params, rows);
+    }
+
+    /**
+     * Redovi za ključ keša; null ako izvor ne može da se opiše unapred. Straničen izvor (PolozeniPagingDataSource)
+     * se ne kešira: ključ bi morao da obuhvati sve strane, a one se čitaju tek tokom fill-a.
+     */
+    private static Object rowsFingerprint(JRDataSource ds) {
+        if (ds instanceof JRBeanCollectionDataSource) return ((JRBeanCollectionDataSource) ds).getData();
+        return null;
+    }
+
+    /** Potrošnja heap-a tokom fill-a (za dimenzionisanje -Xmx na klijentima). */
+    public MemoryStats getMemoryStats() {
+        return memoryStats;
+    }
+
+    private JasperPrint fill(String template, Map<String, Object> params, JRDataSource ds) throws JRException {
+        JasperReport report = templates.get(template);
+
+        long rows = expectedRows(ds);
+        JRSwapFileVirtualizer virtualizer = shouldVirtualize(rows) ? newVirtualizer() : null;
+        if (virtualizer != null) params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        JasperPrint print;
+        try {
+            print = JasperFillManager.fillReport(report, params, ds);
+        } catch (JRException | RuntimeException e) {
+            if (virtualizer != null) virtualizer.cleanup();
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        if (virtualizer != null) {
+            // posle fill-a se strane samo čitaju (export), pa ne moraju ponovo da se upisuju
+            virtualizer.setReadOnly(true);
+            virtualized.put(print, virtualizer);
+        }
+
+        templates.recordFill(template, nanos);
+        memoryStats.record(virtualizer != null, heapBefore, heapAfter);
+        System.out.println(">>> report " + template + " fill " + (nanos / 1_000_000) + " ms"
+                + (rows >= 0 ? " rows=" + rows : "")
+                + (virtualizer != null ? " [swap]" : "")
+                + " heap " + (heapBefore / MB) + " -> " + (heapAfter / MB) + " MB");
+        return print;
+    }
+
+    /** Očekivan broj redova, ako izvor to zna unapred; inače -1. */
+    private static long expectedRows(JRDataSource ds) throws JRException {
+        if (ds instanceof PolozeniPagingDataSource) return ((PolozeniPagingDataSource) ds).getTotalElements();
+        if (ds instanceof JRBeanCollectionDataSource) return ((JRBeanCollectionDataSource) ds).getRecordCount();
+        return -1;
+    }
 
+    private boolean shouldVirtualize(long rows) {
+        if (!virtualizerEnabled) return false;
+        if (rows > virtualizerRowThreshold) return true;
+
+        // i manji izveštaj ide u swap ako je heap već skoro pun
+        Runtime rt = Runtime.getRuntime();
+        long free = rt.maxMemory() - usedHeap();
+        return rows != 0 && free * 100 < rt.maxMemory() * virtualizerMinFreeHeapPct;
+    }
+
+    private JRSwapFileVirtualizer newVirtualizer() throws JRException {
+        try {
+            Files.createDirectories(swapDir);
+        } catch (IOException e) {
+            throw new JRException("Ne mogu da napravim folder za swap: " + swapDir, e);
+        }
+        JRSwapFile swap = new JRSwapFile(swapDir.toString(), 4096, 100);
+        return new JRSwapFileVirtualizer(virtualizerMaxPagesInMemory, swap, true);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
     }
 
     private Map<String, Object> baseParams(StudentIndeksResponse indeks, StudentProfileDTO profile) {
@@ -93,4 +324,42 @@ public class ReportService {
         return (program + " " + String.format("%02d", yy) + "/" + (broj == null ? "" : broj)).trim();
     }
 
+    public static final class MemoryStats {
+        private long fills;
+        private long virtualizedFills;
+        private long maxHeapAfterFill;
+        private long maxHeapGrowth;
+
+        synchronized void record(boolean virtualized, long before, long after) {
+            fills++;
+            if (virtualized) virtualizedFills++;
+            maxHeapAfterFill = Math.max(maxHeapAfterFill, after);
+            maxHeapGrowth = Math.max(maxHeapGrowth, after - before);
+        }
+
+        public synchronized long getFills() { return fills; }
+        public synchronized long getVirtualizedFills() { return virtualizedFills; }
+        public synchronized long getMaxHeapAfterFillMb() { return maxHeapAfterFill / MB; }
+        public synchronized long getMaxHeapGrowthMb() { return maxHeapGrowth / MB; }
+        public long getUsedHeapMb() { return usedHeap() / MB; }
+        public long getMaxHeapMb() { return Runtime.getRuntime().maxMemory() / MB; }
+
+        /** Najveća zauzetost heap-a od starta JVM-a (zbir peak-ova heap pool-ova). */
+        public long getPeakHeapMb() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() != MemoryType.HEAP) continue;
+                MemoryUsage u = pool.getPeakUsage();
+                if (u != null) peak += u.getUsed();
+            }
+            return peak / MB;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "fills=" + fills + " swap=" + virtualizedFills
+                    + " maxAfterFill=" + getMaxHeapAfterFillMb() + "MB maxGrowth=" + getMaxHeapGrowthMb() + "MB"
+                    + " peak=" + getPeakHeapMb() + "MB max=" + getMaxHeapMb() + "MB";
+        }
+    }
 }
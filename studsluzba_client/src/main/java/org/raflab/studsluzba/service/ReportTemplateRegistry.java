@@ -0,0 +1,254 @@
+package org.raflab.studsluzba.service;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drži kompajlirane Jasper šablone u memoriji.
+ * Redosled izvora: spoljni folder (app.reports.templatesDir) -> precompiled /reports/*.jasper -> /reports/*.jrxml.
+ * Ako se izvorni .jrxml promeni na disku, šablon se ponovo kompajlira pri sledećem get().
+ * Podrazumevano svi šabloni idu kroz Jasper; OpenPDF se uključuje pojedinačno,
+ * sa app.reports.renderer.&lt;šablon&gt;=openpdf, i samo za šablone koji ga imaju.
+ */
+@Service
+public class ReportTemplateRegistry {
+
+    public static final String POTVRDA_STUDIRANJA = "potvrda_studiranja";
+    public static final String UVERENJE_POLOZENI = "uverenje_polozeni";
+
+    private static final List<String> ALL = List.of(POTVRDA_STUDIRANJA, UVERENJE_POLOZENI);
+
+    public enum Renderer { JASPER, OPENPDF }
+
+    // šabloni koji imaju OpenPDF implementaciju; ostali uvek idu kroz Jasper
+    private static final Set<String> OPENPDF_CAPABLE = Set.of(POTVRDA_STUDIRANJA);
+
+    private final Path templatesDir;
+    private final Environment env;
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final Map<String, TemplateStats> stats = new ConcurrentHashMap<>();
+
+    public ReportTemplateRegistry(@Value("${app.reports.templatesDir:}") String templatesDir, Environment env) {
+        this.templatesDir = (templatesDir == null || templatesDir.isBlank()) ? null : Path.of(templatesDir.trim());
+        this.env = env;
+    }
+
+    /** Učitava sve šablone; poziva se iz ReportWarmup-a, van startne niti. */
+    public void precompileAll() {
+        for (String name : ALL) {
+            try {
+                get(name);
+            } catch (Exception e) {
+                System.out.println(">>> report template " + name + " nije učitan: " + e.getMessage());
+            }
+        }
+    }
+
+    public JasperReport get(String name) throws JRException {
+        Source src = resolve(name);
+        Template t = templates.get(name);
+        if (t != null && t.stamp == src.stamp) return t.report;
+
+        synchronized (this) {
+            t = templates.get(name);
+            if (t != null && t.stamp == src.stamp) return t.report;
+
+            long start = System.nanoTime();
+            Template loaded = load(name, src);
+            long ms = (System.nanoTime() - start) / 1_000_000;
+
+            templates.put(name, loaded);
+            statsFor(name).recordCompile(ms);
+            System.out.println(">>> report template " + name + (t == null ? " učitan" : " ponovo učitan")
+                    + " (" + src.describe() + ") za " + ms + " ms");
+            return loaded.report;
+        }
+    }
+
+    public Renderer rendererFor(String name) {
+        String v = env.getProperty("app.reports.renderer." + name);
+        if (v == null || v.isBlank()) return Renderer.JASPER;
+        try {
+            Renderer r = Renderer.valueOf(v.trim().toUpperCase());
+            if (r == Renderer.OPENPDF && !OPENPDF_CAPABLE.contains(name)) {
+                System.out.println(">>> šablon " + name + " nema OpenPDF verziju, koristim JASPER");
+                return Renderer.JASPER;
+            }
+            return r;
+        } catch (IllegalArgumentException e) {
+            System.out.println(">>> nepoznat renderer '" + v + "' za " + name + ", koristim JASPER");
+            return Renderer.JASPER;
+        }
+    }
+
+    public void recordFill(String name, long nanos) {
+        statsFor(name).recordFill(nanos);
+    }
+
+    /** Snapshot statistike po šablonu (za log/debug). */
+    public Map<String, TemplateStats> getStats() {
+        return new LinkedHashMap<>(stats);
+    }
+
+    private TemplateStats statsFor(String name) {
+        return stats.computeIfAbsent(name, n -> new TemplateStats());
+    }
+
+    /**
+     * Verzija šablona = SHA-256 izvora iz kog je učitan (jrxml ili jasper).
+     * Menja se čim se šablon promeni, pa je bezbedna kao deo ključa keša PDF-ova.
+     */
+    public String version(String name) throws JRException {
+        get(name);
+        return templates.get(name).version;
+    }
+
+    private Template load(String name, Source src) throws JRException {
+        try {
+            byte[] bytes;
+            if (src.file != null) {
+                bytes = Files.readAllBytes(src.file);
+            } else {
+                try (InputStream in = src.url.openStream()) {
+                    bytes = in.readAllBytes();
+                }
+            }
+
+            JasperReport report = src.precompiled
+                    ? (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(bytes))
+                    : JasperCompileManager.compileReport(new ByteArrayInputStream(bytes));
+            return new Template(report, src.stamp, sha256(bytes));
+        } catch (JRException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JRException("Ne mogu da učitam šablon " + name, e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private Source resolve(String name) throws JRException {
+        if (templatesDir != null) {
+            Path p = templatesDir.resolve(name + ".jrxml");
+            if (Files.isRegularFile(p)) return Source.file(p, lastModified(p));
+        }
+
+        URL jasper = getClass().getResource("/reports/" + name + ".jasper");
+        if (jasper != null) return Source.classpath(jasper, true, 0L);
+
+        URL jrxml = getClass().getResource("/reports/" + name + ".jrxml");
+        if (jrxml == null) throw new JRException("Nepostojeći šablon: " + name);
+
+        // u IDE-u (target/classes) pratimo izmene; iz jar-a se sadržaj ne menja
+        long stamp = 0L;
+        if ("file".equals(jrxml.getProtocol())) {
+            try {
+                stamp = lastModified(Path.of(jrxml.toURI()));
+            } catch (Exception ignore) {
+                // ostaje 0
+            }
+        }
+        return Source.classpath(jrxml, false, stamp);
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private static final class Template {
+        final JasperReport report;
+        final long stamp;
+        final String version;
+
+        Template(JasperReport report, long stamp, String version) {
+            this.report = report;
+            this.stamp = stamp;
+            this.version = version;
+        }
+    }
+
+    private static final class Source {
+        final Path file;
+        final URL url;
+        final boolean precompiled;
+        final long stamp;
+
+        private Source(Path file, URL url, boolean precompiled, long stamp) {
+            this.file = file;
+            this.url = url;
+            this.precompiled = precompiled;
+            this.stamp = stamp;
+        }
+
+        static Source file(Path file, long stamp) {
+            return new Source(file, null, false, stamp);
+        }
+
+        static Source classpath(URL url, boolean precompiled, long stamp) {
+            return new Source(null, url, precompiled, stamp);
+        }
+
+        String describe() {
+            if (file != null) return file.toString();
+            return (precompiled ? "precompiled " : "") + url;
+        }
+    }
+
+    public static final class TemplateStats {
+        private long compileCount;
+        private long lastCompileMillis;
+        private long fillCount;
+        private long totalFillNanos;
+        private long maxFillNanos;
+
+        synchronized void recordCompile(long ms) {
+            compileCount++;
+            lastCompileMillis = ms;
+        }
+
+        synchronized void recordFill(long nanos) {
+            fillCount++;
+            totalFillNanos += nanos;
+            maxFillNanos = Math.max(maxFillNanos, nanos);
+        }
+
+        public synchronized long getCompileCount() { return compileCount; }
+        public synchronized long getLastCompileMillis() { return lastCompileMillis; }
+        public synchronized long getFillCount() { return fillCount; }
+        public synchronized double getAvgFillMillis() { return fillCount == 0 ? 0 : (totalFillNanos / 1_000_000.0) / fillCount; }
+        public synchronized double getMaxFillMillis() { return maxFillNanos / 1_000_000.0; }
+
+        @Override
+        public synchronized String toString() {
+            return "compiles=" + compileCount + " lastCompile=" + lastCompileMillis + "ms"
+                    + " fills=" + fillCount + String.format(" avgFill=%.1fms maxFill=%.1fms", getAvgFillMillis(), getMaxFillMillis());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.raflab.studsluzba.service;
+
+import org.raflab.studsluzba.controllers.response.PolozenPredmetResponse;
+import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Zagrevanje izveštaja odmah po startu, u pozadini: učitavanje šablona, probni fill
+ * i export u "null" stream. Tako se class loading, fontovi i kompajliranje ne plaćaju
+ * na prvoj pravoj potvrdi. Kad je isključeno, šabloni se kompajliraju lenjo, pri prvom get().
+ */
+@Service
+public class ReportWarmup {
+
+    private final ReportTemplateRegistry templates;
+    private final ReportService reportService;
+    private final boolean enabled;
+
+    public ReportWarmup(ReportTemplateRegistry templates,
+                        ReportService reportService,
+                        @Value("${app.reports.warmup.enabled:true}") boolean enabled) {
+        this.templates = templates;
+        this.reportService = reportService;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        // ne sme da blokira startnu nit (i pokretanje JavaFX-a)
+        if (!enabled) return;
+
+        Thread t = new Thread(this::warmUp, "report-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            templates.precompileAll();
+            long compiled = System.currentTimeMillis();
+
+            StudentIndeksResponse indeks = dummyIndeks();
+            ReportOutput sink = ReportOutput.toStream(OutputStream.nullOutputStream());
+
+            // direktno fill + export (bez keša PDF-ova), oba šablona kroz Jasper
+            reportService.export(reportService.fillPotvrdaStudiranja(indeks, null), sink, "warmup");
+            reportService.export(reportService.fillUverenjePolozeni(indeks, null, List.of(dummyPolozen())), sink, "warmup");
+            long jasper = System.currentTimeMillis();
+
+            // OpenPDF se zagreva samo ako je uključen za potvrdu
+            if (templates.rendererFor(ReportTemplateRegistry.POTVRDA_STUDIRANJA) == ReportTemplateRegistry.Renderer.OPENPDF) {
+                reportService.renderPotvrdaOpenPdf(indeks, null, sink);
+            }
+            long end = System.currentTimeMillis();
+
+            System.out.println(">>> report warmup završen za " + (end - start) + " ms"
+                    + " (šabloni " + (compiled - start) + " ms, jasper fill/export " + (jasper - compiled) + " ms"
+                    + ", openpdf " + (end - jasper) + " ms)");
+        } catch (Exception e) {
+            System.out.println(">>> report warmup nije uspeo posle " + (System.currentTimeMillis() - start) + " ms: " + e.getMessage());
+        }
+    }
+
+    private static StudentIndeksResponse dummyIndeks() {
+        StudentIndeksResponse i = new StudentIndeksResponse();
+        i.setImeStudenta("Čedomir");
+        i.setPrezimeStudenta("Đurić");
+        i.setStudProgramOznaka("RN");
+        i.setStudijskiProgramNaziv("Računarske nauke");
+        i.setGodina(LocalDate.now().getYear());
+        i.setBroj(1);
+        i.setOstvarenoEspb(0);
+        return i;
+    }
+
+    private static PolozenPredmetResponse dummyPolozen() {
+        PolozenPredmetResponse p = new PolozenPredmetResponse();
+        p.setPredmetNaziv("Šablon");
+        p.setOcena(10);
+        p.setEspb(6);
+        p.setDatumPolaganja(LocalDate.now());
+        return p;
+    }
+}
@@ -0,0 +1,54 @@
+package org.raflab.studsluzba.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Izvor redova za tabelu sa beskonačnim skrolom: komad po komad, napred ili nazad od kursora.
+ * Kursor je neproziran string - server sa keyset paginacijom vraća svoj (npr. poslednji id),
+ * a za endpoint-e koji znaju samo za broj strane postoji {@link #fromPages}.
+ */
+public interface ScrollSource<T> {
+
+    /** Prvi komad kad je kursor null. */
+    Mono<Chunk<T>> load(String cursor, int size);
+
+    /**
+     * Adapter za offset paginaciju (PageResponse): kursor je broj strane.
+     * Sve dok server nema keyset varijantu, /api/student/search i /api/polozeni idu ovuda.
+     */
+    static <T> ScrollSource<T> fromPages(PagedLoader.Fetcher<T> fetcher) {
+        return (cursor, size) -> fetcher.fetch(cursor == null ? 0 : Integer.parseInt(cursor), size).map(Chunk::ofPage);
+    }
+
+    final class Chunk<T> {
+        private final List<T> rows;
+        private final String prev;
+        private final String next;
+        private final long total;
+
+        /** prev/next su null kad u tom smeru nema više; total je -1 ako ga server ne zna. */
+        public Chunk(List<T> rows, String prev, String next, long total) {
+            this.rows = rows;
+            this.prev = prev;
+            this.next = next;
+            this.total = total;
+        }
+
+        /** Strana kao komad; za stranu koja je već stigla drugim putem (npr. prva strana pretrage). */
+        public static <T> Chunk<T> ofPage(PageResponse<T> resp) {
+            int page = resp.getNumber();
+            return new Chunk<>(
+                    resp.getContent() == null ? List.of() : resp.getContent(),
+                    page > 0 ? String.valueOf(page - 1) : null,
+                    page + 1 < resp.getTotalPages() ? String.valueOf(page + 1) : null,
+                    resp.getTotalElements());
+        }
+
+        public List<T> getRows() { return rows; }
+        public String getPrev() { return prev; }
+        public String getNext() { return next; }
+        public long getTotal() { return total; }
+    }
+}
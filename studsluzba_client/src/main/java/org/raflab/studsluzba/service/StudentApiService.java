@@ -1,6 +1,7 @@
 package org.raflab.studsluzba.service;
 
 
+import org.raflab.studsluzba.config.RequestCoalescingFilter;
 import org.raflab.studsluzba.controllers.request.ObnovaGodineRequest;
 import org.raflab.studsluzba.controllers.request.UpisGodineRequest;
 import org.raflab.studsluzba.controllers.request.UplataRequest;
@@ -10,6 +11,7 @@ import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -18,9 +20,13 @@ import java.util.List;
 public class StudentApiService {
 
     private final WebClient webClient;
+    private final ReferenceDataCache refData;
+    private final StudentProfileCache profileCache;
 
-    public StudentApiService(WebClient webClient) {
+    public StudentApiService(WebClient webClient, ReferenceDataCache refData, StudentProfileCache profileCache) {
         this.webClient = webClient;
+        this.refData = refData;
+        this.profileCache = profileCache;
     }
 
     public Mono<StudentIndeksResponse> fastSearchByIndex(String indeksShort) {
@@ -33,25 +39,35 @@ public class StudentApiService {
                         .path("/api/student/fastsearch")
                         .queryParam("indeksShort", cleaned)
                         .build())
+                .attribute(RequestCoalescingFilter.COALESCE, true)
                 .retrieve()
                 .bodyToMono(StudentIndeksResponse.class);
     }
 
     public Mono<StudentProfileDTO> getProfile(Long indeksId) {
-        System.out.println(">>> getProfile indeksId=" + indeksId);
+        return Mono.defer(() -> {
+            StudentProfileDTO cached = profileCache.getProfile(indeksId);
+            if (cached != null) return Mono.just(cached);
 
-        // SERVER: GET /api/student/profile/{studentIndeksId}
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/api/student/profile/{studentIndeksId}")
-                        .build(indeksId))
-                .retrieve()
-                .bodyToMono(StudentProfileDTO.class);
+            System.out.println(">>> getProfile indeksId=" + indeksId);
+            long gen = profileCache.generation(indeksId);
+
+            // SERVER: GET /api/student/profile/{studentIndeksId}
+            return webClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/student/profile/{studentIndeksId}")
+                            .build(indeksId))
+                    .attribute(RequestCoalescingFilter.COALESCE, true)
+                    .retrieve()
+                    .bodyToMono(StudentProfileDTO.class)
+                    .doOnNext(p -> profileCache.putProfile(indeksId, gen, p));
+        });
     }
 
     public Mono<StudentPodaciResponse> getStudentPodaci(Long studentPodaciId) {
         return webClient.get()
                 .uri("/api/student/podaci/{id}", studentPodaciId)
+                .attribute(RequestCoalescingFilter.COALESCE, true)
                 .retrieve()
                 .bodyToMono(StudentPodaciResponse.class);
     }
@@ -71,10 +87,14 @@ public class StudentApiService {
     }
 
     public Mono<List<UplataResponse>> getUplate(Long studentIndeksId) {
+        return streamUplate(studentIndeksId).collectList();
+    }
+
+    public Flux<UplataResponse> streamUplate(Long studentIndeksId) {
         return webClient.get()
                 .uri("/api/uplata/{indeksId}", studentIndeksId)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<UplataResponse>>() {});
+                .bodyToFlux(UplataResponse.class);
     }
 
     public Mono<List<UpisGodineResponse>> getUpisi(Long studentIndeksId) {
@@ -93,10 +113,18 @@ public class StudentApiService {
 
 
     public Mono<StudentIndeksResponse> getStudentIndeks(Long indeksId) {
-        return webClient.get()
-                .uri("/api/student/indeks/{id}", indeksId)
-                .retrieve()
-                .bodyToMono(StudentIndeksResponse.class);
+        return Mono.defer(() -> {
+            StudentIndeksResponse cached = profileCache.getIndeks(indeksId);
+            if (cached != null) return Mono.just(cached);
+
+            long gen = profileCache.generation(indeksId);
+            return webClient.get()
+                    .uri("/api/student/indeks/{id}", indeksId)
+                    .attribute(RequestCoalescingFilter.COALESCE, true)
+                    .retrieve()
+                    .bodyToMono(StudentIndeksResponse.class)
+                    .doOnNext(i -> profileCache.putIndeks(indeksId, gen, i));
+        });
     }
 
     public Mono<PageResponse<StudentDTO>> searchStudents(
@@ -134,30 +162,34 @@ public class StudentApiService {
                 .uri("/api/uplata/{indeksId}", indeksId)
                 .bodyValue(req)
                 .retrieve()
-                .bodyToMono(UplataResponse.class);
+                .bodyToMono(UplataResponse.class)
+                .doOnSuccess(r -> profileCache.invalidate(indeksId));
     }
 
     public Mono<List<SrednjaSkolaResponse>> getSrednjeSkole() {
-        return webClient.get()
-                .uri("/srednje-skole")
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<SrednjaSkolaResponse>>() {});
+        return refData.list(ReferenceDataCache.SREDNJE_SKOLE, "/srednje-skole", SrednjaSkolaResponse.class);
     }
 
     public Mono<List<StudentDTO>> getStudentiPoSrednjojSkoli(Long srednjaSkolaId) {
+        return streamStudentiPoSrednjojSkoli(srednjaSkolaId).collectList();
+    }
+
+    /** Elementi JSON niza se dekodiraju kako stižu - prvi redovi pre kraja odgovora. */
+    public Flux<StudentDTO> streamStudentiPoSrednjojSkoli(Long srednjaSkolaId) {
         return webClient.get()
                 .uri("/api/student/srednja-skola/{id}", srednjaSkolaId)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<StudentDTO>>() {});
+                .bodyToFlux(StudentDTO.class);
     }
     public Mono<List<SkolskaGodinaResponse>> getSkolskeGodine() {
-        return webClient.get()
-                .uri("/api/skolske-godine")
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<SkolskaGodinaResponse>>() {});
+        return refData.list(ReferenceDataCache.SKOLSKE_GODINE, "/api/skolske-godine", SkolskaGodinaResponse.class);
     }
 
     public Mono<List<DrziPredmetResponse>> getDrziPredmet(Long skolskaGodinaId, String studProgramOznaka) {
+        return streamDrziPredmet(skolskaGodinaId, studProgramOznaka).collectList();
+    }
+
+    public Flux<DrziPredmetResponse> streamDrziPredmet(Long skolskaGodinaId, String studProgramOznaka) {
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/api/drzi-predmet")
@@ -165,7 +197,7 @@ public class StudentApiService {
                         .queryParam("studProgramOznaka", studProgramOznaka)
                         .build())
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<DrziPredmetResponse>>() {});
+                .bodyToFlux(DrziPredmetResponse.class);
     }
 
     public Mono<UpisGodineResponse> addUpisGodine(UpisGodineRequest req) {
@@ -173,7 +205,8 @@ public class StudentApiService {
                 .uri("/api/upis-godine")
                 .bodyValue(req)
                 .retrieve()
-                .bodyToMono(UpisGodineResponse.class);
+                .bodyToMono(UpisGodineResponse.class)
+                .doOnSuccess(r -> profileCache.invalidate(req.getStudentIndeksId()));
     }
 
     public Mono<ObnovaGodineResponse> addObnovaGodine(ObnovaGodineRequest req) {
@@ -181,7 +214,8 @@ public class StudentApiService {
                 .uri("/api/obnova-godine")
                 .bodyValue(req)
                 .retrieve()
-                .bodyToMono(ObnovaGodineResponse.class);
+                .bodyToMono(ObnovaGodineResponse.class)
+                .doOnSuccess(r -> profileCache.invalidate(req.getStudentIndeksId()));
     }
 
 
@@ -0,0 +1,494 @@
+package org.raflab.studsluzba.service;
+
+import org.raflab.studsluzba.model.dtos.StudentDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Lokalni imenik studenata za pretragu bez odlaska na server.
+ * Učitava se po stranama (/api/student/search) i periodično ponovo učitava ceo u pozadini
+ * (server nema upit "izmenjeno od"), a svaki rezultat koji dođe sa servera se odmah ubaci (merge).
+ * Pretraga po imenu zato pogotke iz imenika prikazuje odmah, ali ih uvek proverava i sa serverom.
+ * <p>
+ * Imena se porede "presavijena": mala slova, bez dijakritika, ćirilica preslovljena u latinicu
+ * (Ђорђе = Đorđe = Djordje). Kandidati se traže preko trigrama sa prefiksnim paddingom,
+ * a prihvata se prefiks ili jedna greška u kucanju (za upit od bar 4 slova).
+ * Dok imenik nije učitan, kad je stariji od maxAgeSeconds, ili kad lokalno nema pogodaka, pozivaoci idu na server.
+ */
+@Service
+public class StudentDirectoryIndex {
+
+    private static final int MAX_TYPOS = 1;
+    private static final int TYPO_MIN_LENGTH = 4;
+    private static final Pattern TOKENS = Pattern.compile("[\\s-]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final StudentApiService api;
+    private final boolean enabled;
+    private final int pageSize;
+    private final long refreshSeconds;
+    private final long maxAgeNanos;
+
+    private volatile Snapshot snapshot;
+    private volatile long loadedAtNanos;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong localMisses = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong staleRefused = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+
+    public StudentDirectoryIndex(StudentApiService api,
+                                 @Value("${app.directory.enabled:false}") boolean enabled,
+                                 @Value("${app.directory.pageSize:500}") int pageSize,
+                                 @Value("${app.directory.refreshSeconds:600}") long refreshSeconds,
+                                 @Value("${app.directory.maxAgeSeconds:1800}") long maxAgeSeconds) {
+        this.api = api;
+        this.enabled = enabled;
+        this.pageSize = Math.max(10, pageSize);
+        this.refreshSeconds = refreshSeconds;
+        this.maxAgeNanos = Duration.ofSeconds(Math.max(0, maxAgeSeconds)).toNanos();
+    }
+
+    public boolean isReady() {
+        return current() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) return;
+
+        Flux<Long> ticks = refreshSeconds > 0
+                ? Flux.interval(Duration.ZERO, Duration.ofSeconds(refreshSeconds))
+                : Flux.just(0L);
+
+        // concatMap: sledeće osvežavanje ne kreće dok prethodno nije gotovo
+        ticks.onBackpressureDrop()
+                .concatMap(t -> loadAll()
+                        .doOnNext(this::replace)
+                        .onErrorResume(err -> {
+                            System.out.println(">>> imenik studenata: učitavanje nije uspelo: " + err.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /** Pretraga po indeksu u obliku iz normalizeIndeksShort (npr. RN2012). Null ako nije u imeniku. */
+    public StudentDTO findByIndeks(String indeksShort) {
+        Snapshot s = current();
+        if (s == null || indeksShort == null) return null;
+
+        Entry e = s.byKey.get(fold(indeksShort).replaceAll("[^a-z0-9]", ""));
+        (e != null ? localHits : localMisses).incrementAndGet();
+        return e == null ? null : e.dto;
+    }
+
+    /**
+     * Ista polja kao forma za pretragu po imenu. Vraća stranu rezultata ili null ako imenik
+     * nije spreman ili nema pogodaka - tada treba pitati server.
+     */
+    public PageResponse<StudentDTO> search(String ime, String prezime, String studProgram,
+                                           Integer godina, Integer broj, int page, int size) {
+        Snapshot s = current();
+        if (s == null) return null;
+
+        long start = System.nanoTime();
+        List<Entry> hits = s.search(fold(ime), fold(prezime), fold(studProgram), godina, broj);
+        searchNanos.addAndGet(System.nanoTime() - start);
+        searches.incrementAndGet();
+
+        if (hits.isEmpty()) {
+            localMisses.incrementAndGet();
+            return null;
+        }
+        localHits.incrementAndGet();
+
+        int from = Math.min(page * size, hits.size());
+        int to = Math.min(from + size, hits.size());
+        List<StudentDTO> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) content.add(hits.get(i).dto);
+
+        PageResponse<StudentDTO> resp = new PageResponse<>();
+        resp.setContent(content);
+        resp.setNumber(page);
+        resp.setSize(size);
+        resp.setTotalElements(hits.size());
+        resp.setTotalPages((hits.size() + size - 1) / size);
+        return resp;
+    }
+
+    /** Rezultati sa servera (fallback pretraga) - novi ili izmenjeni studenti ulaze odmah. */
+    public void merge(Collection<StudentDTO> students) {
+        if (students == null || students.isEmpty()) return;
+
+        synchronized (this) {
+            Snapshot s = snapshot;
+            if (s == null) return;
+
+            Map<Long, StudentDTO> all = null;
+            for (StudentDTO dto : students) {
+                if (dto == null || dto.getIdIndeks() == null) continue;
+                Entry old = s.byId.get(dto.getIdIndeks());
+                if (old != null && sameEntry(old.dto, dto)) continue;
+
+                if (all == null) all = s.students();
+                all.put(dto.getIdIndeks(), dto);
+                merged.incrementAndGet();
+            }
+            if (all != null) snapshot = Snapshot.build(all.values());
+        }
+    }
+
+    public int getSize() {
+        Snapshot s = snapshot;
+        return s == null ? 0 : s.entries.length;
+    }
+
+    public long getLocalHits() { return localHits.get(); }
+    public long getLocalMisses() { return localMisses.get(); }
+
+    @Override
+    public String toString() {
+        long n = searches.get();
+        return "studenti=" + getSize() + " hits=" + localHits + " misses=" + localMisses + " merged=" + merged
+                + " zastareo=" + staleRefused
+                + " avgSearch=" + (n == 0 ? 0 : searchNanos.get() / n / 1000) + "µs";
+    }
+
+    private Mono<List<StudentDTO>> loadAll() {
+        long start = System.currentTimeMillis();
+        return page(0)
+                .expand(p -> p.getNumber() + 1 < p.getTotalPages() ? page(p.getNumber() + 1) : Mono.empty())
+                .concatMapIterable(p -> p.getContent() == null ? List.<StudentDTO>of() : p.getContent())
+                .collectList()
+                .doOnNext(list -> System.out.println(">>> imenik studenata: učitano " + list.size()
+                        + " studenata za " + (System.currentTimeMillis() - start) + " ms"));
+    }
+
+    private Mono<PageResponse<StudentDTO>> page(int page) {
+        return api.searchStudents(null, null, null, null, null, page, pageSize);
+    }
+
+    private synchronized void replace(List<StudentDTO> students) {
+        long start = System.nanoTime();
+        Snapshot built = Snapshot.build(students);
+        loadedAtNanos = System.nanoTime();
+        snapshot = built;
+        System.out.println(">>> imenik studenata: indeks izgrađen za "
+                + (System.nanoTime() - start) / 1_000_000 + " ms (" + this + ")");
+    }
+
+    /** Imenik, ili null ako nije učitan ili poslednje potpuno učitavanje nije uspelo duže od maxAgeSeconds. */
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) return null;
+        if (maxAgeNanos > 0 && System.nanoTime() - loadedAtNanos > maxAgeNanos) {
+            staleRefused.incrementAndGet();
+            return null;
+        }
+        return s;
+    }
+
+    private static boolean sameEntry(StudentDTO a, StudentDTO b) {
+        return Objects.equals(a.getIme(), b.getIme())
+                && Objects.equals(a.getPrezime(), b.getPrezime())
+                && Objects.equals(a.getStudProgramOznaka(), b.getStudProgramOznaka())
+                && a.getGodinaUpisa() == b.getGodinaUpisa()
+                && a.getBroj() == b.getBroj()
+                && a.isAktivanIndeks() == b.isAktivanIndeks();
+    }
+
+    /**
+     * Mala slova, ćirilica -> latinica, bez dijakritika (đ -> dj, ostalo na osnovno slovo).
+     * Null/prazno daje "".
+     */
+    public static String fold(String s) {
+        if (s == null || s.isBlank()) return "";
+        String lower = s.trim().toLowerCase();
+        StringBuilder sb = new StringBuilder(lower.length() + 4);
+        boolean other = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            String t = translit(c);
+            if (t != null) sb.append(t);
+            else {
+                sb.append(c);
+                other |= c > 127;
+            }
+        }
+        // ostali dijakritici (š, č, ć, ž, strana imena) - NFD samo kad ima šta da se skine
+        return other ? DIACRITICS.matcher(Normalizer.normalize(sb, Normalizer.Form.NFD)).replaceAll("") : sb.toString();
+    }
+
+    private static String translit(char c) {
+        switch (c) {
+            case 'а': return "a";
+            case 'б': return "b";
+            case 'в': return "v";
+            case 'г': return "g";
+            case 'д': return "d";
+            case 'ђ': case 'đ': return "dj";
+            case 'е': return "e";
+            case 'ж': case 'з': return "z";
+            case 'и': return "i";
+            case 'ј': return "j";
+            case 'к': return "k";
+            case 'л': return "l";
+            case 'љ': return "lj";
+            case 'м': return "m";
+            case 'н': return "n";
+            case 'њ': return "nj";
+            case 'о': return "o";
+            case 'п': return "p";
+            case 'р': return "r";
+            case 'с': return "s";
+            case 'т': return "t";
+            case 'ћ': case 'ц': case 'ч': return "c";
+            case 'у': return "u";
+            case 'ф': return "f";
+            case 'х': return "h";
+            case 'џ': return "dz";
+            case 'ш': return "s";
+            default: return null;
+        }
+    }
+
+    private static final class Entry {
+        final StudentDTO dto;
+        final String ime;
+        final String prezime;
+        final String program;
+        // delovi dvostrukog imena/prezimena ("jovanović-petrović"), prazno ako je jedna reč
+        final String[] imeParts;
+        final String[] prezimeParts;
+
+        Entry(StudentDTO dto) {
+            this.dto = dto;
+            this.ime = fold(dto.getIme());
+            this.prezime = fold(dto.getPrezime());
+            this.program = fold(dto.getStudProgramOznaka());
+            this.imeParts = parts(ime);
+            this.prezimeParts = parts(prezime);
+        }
+
+        private static String[] parts(String s) {
+            String[] p = TOKENS.split(s);
+            return p.length > 1 ? p : new String[0];
+        }
+
+        /** Isti oblik kao normalizeIndeksShort: program + yy + broj. */
+        String key() {
+            int yy = dto.getGodinaUpisa() > 0 ? dto.getGodinaUpisa() % 100 : 0;
+            StringBuilder sb = new StringBuilder(12);
+            for (int i = 0; i < program.length(); i++) {
+                char c = program.charAt(i);
+                if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) sb.append(c);
+            }
+            if (yy < 10) sb.append('0');
+            return sb.append(yy).append(dto.getBroj()).toString();
+        }
+    }
+
+    /** Nepromenljiv presek imenika; čitanje bez zaključavanja, izmena pravi novi. */
+    private static final class Snapshot {
+        final Entry[] entries;
+        final Map<Long, Entry> byId;
+        final Map<String, Entry> byKey;
+        // trigram -> rastući indeksi u entries (ime i prezime zajedno)
+        final Map<String, int[]> grams;
+
+        private Snapshot(Entry[] entries, Map<Long, Entry> byId, Map<String, Entry> byKey, Map<String, int[]> grams) {
+            this.entries = entries;
+            this.byId = byId;
+            this.byKey = byKey;
+            this.grams = grams;
+        }
+
+        static Snapshot build(Collection<StudentDTO> students) {
+            List<Entry> list = new ArrayList<>(students.size());
+            for (StudentDTO dto : students) {
+                if (dto != null && dto.getIdIndeks() != null) list.add(new Entry(dto));
+            }
+            list.sort(Comparator.comparing((Entry e) -> e.prezime).thenComparing(e -> e.ime));
+            Entry[] entries = list.toArray(new Entry[0]);
+
+            Map<Long, Entry> byId = new HashMap<>(entries.length * 2);
+            Map<String, Entry> byKey = new HashMap<>(entries.length * 2);
+            Map<String, IntList> postings = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                Entry e = entries[i];
+                byId.put(e.dto.getIdIndeks(), e);
+                byKey.putIfAbsent(e.key(), e);
+                for (String g : trigrams(e.ime)) postings.computeIfAbsent(g, k -> new IntList()).addUnique(i);
+                for (String g : trigrams(e.prezime)) postings.computeIfAbsent(g, k -> new IntList()).addUnique(i);
+            }
+
+            Map<String, int[]> grams = new HashMap<>(postings.size() * 2);
+            postings.forEach((g, ids) -> grams.put(g, ids.toArray()));
+            return new Snapshot(entries, byId, byKey, grams);
+        }
+
+        Map<Long, StudentDTO> students() {
+            Map<Long, StudentDTO> m = new LinkedHashMap<>(entries.length * 2);
+            for (Entry e : entries) m.put(e.dto.getIdIndeks(), e.dto);
+            return m;
+        }
+
+        List<Entry> search(String ime, String prezime, String program, Integer godina, Integer broj) {
+            // entries su već sortirani po prezimenu i imenu, a kandidati rastu - ostaje samo podela po skoru
+            List<Entry> exact = new ArrayList<>();
+            List<Entry> typos = new ArrayList<>();
+            for (int i : candidates(ime, prezime)) {
+                Entry e = entries[i];
+                if (!program.isEmpty() && !e.program.startsWith(program)) continue;
+                if (godina != null && !matchesGodina(e.dto.getGodinaUpisa(), godina)) continue;
+                if (broj != null && e.dto.getBroj() != broj) continue;
+
+                int si = nameScore(ime, e.ime, e.imeParts);
+                if (si < 0) continue;
+                int sp = nameScore(prezime, e.prezime, e.prezimeParts);
+                if (sp < 0) continue;
+
+                (si + sp == 0 ? exact : typos).add(e);
+            }
+
+            exact.addAll(typos);
+            return exact;
+        }
+
+        /** Trigrami najselektivnijeg imena u upitu; bez imena - svi studenti (filtrira se po ostalim poljima). */
+        private int[] candidates(String ime, String prezime) {
+            String q = prezime.length() >= ime.length() ? prezime : ime;
+            if (q.isEmpty()) return allIds();
+
+            List<String> qg = new ArrayList<>(new LinkedHashSet<>(trigrams(q)));
+            // jedna greška kvari najviše 3 trigrama, zamena dva susedna slova najviše 4;
+            // kratkim upitima sa greškom tražimo bar jedan zajednički, umesto prolaska kroz sve
+            int need = q.length() >= TYPO_MIN_LENGTH ? Math.max(1, qg.size() - 4 * MAX_TYPOS) : qg.size();
+
+            int[] counts = new int[entries.length];
+            IntList out = new IntList();
+            for (String g : qg) {
+                int[] ids = grams.get(g);
+                if (ids == null) continue;
+                for (int id : ids) {
+                    if (++counts[id] == need) out.add(id);
+                }
+            }
+            return out.toArray();
+        }
+
+        private int[] allIds() {
+            int[] ids = new int[entries.length];
+            for (int i = 0; i < ids.length; i++) ids[i] = i;
+            return ids;
+        }
+    }
+
+    private static boolean matchesGodina(int godinaUpisa, int godina) {
+        return godina < 100 ? godinaUpisa % 100 == godina : godinaUpisa == godina;
+    }
+
+    /** 0 = prefiks (ili prazan upit), 1 = jedna greška u kucanju, -1 = ne odgovara. */
+    private static int nameScore(String query, String value, String[] parts) {
+        if (query.isEmpty() || value.startsWith(query)) return 0;
+        // "marko petrović" u polju za ime, ili dvostruko prezime
+        for (String part : parts) {
+            if (part.startsWith(query)) return 0;
+        }
+        if (query.length() >= TYPO_MIN_LENGTH && prefixDistance(query, value) <= MAX_TYPOS) return 1;
+        return -1;
+    }
+
+    /**
+     * Najmanja Damerau (OSA) udaljenost između upita i nekog prefiksa vrednosti.
+     * Upit je kratak, pa je matrica mala; prekida se čim ceo red pređe MAX_TYPOS.
+     */
+    private static int prefixDistance(String q, String v) {
+        int n = q.length();
+        int m = Math.min(v.length(), n + MAX_TYPOS);
+        if (m < n - MAX_TYPOS) return MAX_TYPOS + 1;
+
+        // tri reda su dovoljna (OSA gleda i red i-2)
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = q.charAt(i - 1) == v.charAt(j - 1) ? 0 : 1;
+                int best = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && q.charAt(i - 1) == v.charAt(j - 2) && q.charAt(i - 2) == v.charAt(j - 1)) {
+                    best = Math.min(best, prev2[j - 2] + 1);
+                }
+                cur[j] = best;
+                rowMin = Math.min(rowMin, best);
+            }
+            if (rowMin > MAX_TYPOS) return rowMin;
+
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+
+        int min = Integer.MAX_VALUE;
+        for (int j = 0; j <= m; j++) min = Math.min(min, prev[j]);
+        return min;
+    }
+
+    /** Trigrami sa dva razmaka ispred, pa i upit od jednog slova ima svoj "prefiksni" trigram. */
+    private static List<String> trigrams(String s) {
+        if (s.isEmpty()) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String token : TOKENS.split(s)) {
+            if (token.isEmpty()) continue;
+            String p = "  " + token;
+            for (int i = 0; i + 3 <= p.length(); i++) out.add(p.substring(i, i + 3));
+        }
+        return out;
+    }
+
+    private static final class IntList {
+        int[] a = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+
+        /** Isti student može da ima isti trigram u imenu i prezimenu; dodaje se rastuće, pa je dovoljan poslednji. */
+        void addUnique(int v) {
+            if (size > 0 && a[size - 1] == v) return;
+            add(v);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(a, size);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.raflab.studsluzba.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
+import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU keš indeksa i profila po indeksId.
+ * Ograničen brojem studenata i približnom veličinom (dužina JSON-a), uz TTL za izmene sa drugih šaltera.
+ * Posle uspešnog upisa (uplata, upis, obnova) student se izbacuje; zahtev koji je krenuo pre upisa
+ * ne sme da vrati stari podatak u keš - zato generacija po ključu.
+ */
+@Service
+public class StudentProfileCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final LinkedHashMap<Long, Entry> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public StudentProfileCache(@Value("${app.cache.profile.maxEntries:200}") int maxEntries,
+                               @Value("${app.cache.profile.maxKb:16384}") long maxKb,
+                               @Value("${app.cache.profile.ttlSeconds:300}") long ttlSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxKb) * 1024;
+        this.ttlMillis = Math.max(0, ttlSeconds) * 1000;
+    }
+
+    /** Uzima se pre slanja zahteva i prosleđuje u put*, da zakasneli odgovor ne pregazi invalidaciju. */
+    public long generation(Long indeksId) {
+        return generations.getOrDefault(indeksId, 0L);
+    }
+
+    /** Da li su i indeks i profil u kešu (ne ulazi u hit/miss statistiku). */
+    public synchronized boolean contains(Long indeksId) {
+        Entry e = lru.get(indeksId);
+        boolean expired = e != null && ttlMillis > 0 && System.currentTimeMillis() - e.createdAt > ttlMillis;
+        return e != null && !expired && e.indeks != null && e.profile != null;
+    }
+
+    public synchronized StudentIndeksResponse getIndeks(Long indeksId) {
+        Entry e = fresh(indeksId);
+        StudentIndeksResponse v = e == null ? null : e.indeks;
+        (v != null ? hits : misses).incrementAndGet();
+        return v;
+    }
+
+    public synchronized StudentProfileDTO getProfile(Long indeksId) {
+        Entry e = fresh(indeksId);
+        StudentProfileDTO v = e == null ? null : e.profile;
+        (v != null ? hits : misses).incrementAndGet();
+        return v;
+    }
+
+    public void putIndeks(Long indeksId, long generation, StudentIndeksResponse indeks) {
+        if (indeksId == null || indeks == null) return;
+        long size = sizeOf(indeks);
+        synchronized (this) {
+            if (generation != generation(indeksId)) return;
+            Entry e = entry(indeksId);
+            totalBytes += size - e.indeksBytes;
+            e.indeks = indeks;
+            e.indeksBytes = size;
+            trim();
+        }
+    }
+
+    public void putProfile(Long indeksId, long generation, StudentProfileDTO profile) {
+        if (indeksId == null || profile == null) return;
+        long size = sizeOf(profile);
+        synchronized (this) {
+            if (generation != generation(indeksId)) return;
+            Entry e = entry(indeksId);
+            totalBytes += size - e.profileBytes;
+            e.profile = profile;
+            e.profileBytes = size;
+            trim();
+        }
+    }
+
+    public synchronized void invalidate(Long indeksId) {
+        if (indeksId == null) return;
+        generations.merge(indeksId, 1L, Long::sum);
+        Entry e = lru.remove(indeksId);
+        if (e != null) totalBytes -= e.bytes();
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized void clear() {
+        for (Long id : lru.keySet()) generations.merge(id, 1L, Long::sum);
+        lru.clear();
+        totalBytes = 0;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getInvalidations() { return invalidations.get(); }
+    public synchronized int getSize() { return lru.size(); }
+    public synchronized long getSizeBytes() { return totalBytes; }
+
+    @Override
+    public synchronized String toString() {
+        return "studenti=" + lru.size() + "/" + maxEntries + " size=" + (totalBytes / 1024) + "KB/" + (maxBytes / 1024) + "KB"
+                + " hits=" + hits + " misses=" + misses + " evictions=" + evictions + " invalidations=" + invalidations;
+    }
+
+    private Entry fresh(Long indeksId) {
+        Entry e = lru.get(indeksId);
+        if (e != null && ttlMillis > 0 && System.currentTimeMillis() - e.createdAt > ttlMillis) {
+            lru.remove(indeksId);
+            totalBytes -= e.bytes();
+            return null;
+        }
+        return e;
+    }
+
+    private Entry entry(Long indeksId) {
+        Entry e = fresh(indeksId);
+        if (e == null) {
+            e = new Entry();
+            lru.put(indeksId, e);
+        }
+        return e;
+    }
+
+    private void trim() {
+        Iterator<Entry> it = lru.values().iterator();
+        // najstariji (najdavnije korišćeni) su na početku; poslednji ubačeni ostaje uvek
+        while ((lru.size() > maxEntries || totalBytes > maxBytes) && lru.size() > 1 && it.hasNext()) {
+            Entry e = it.next();
+            it.remove();
+            totalBytes -= e.bytes();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private long sizeOf(Object o) {
+        try {
+            return mapper.writeValueAsBytes(o).length;
+        } catch (Exception e) {
+            return 4096;
+        }
+    }
+
+    private static final class Entry {
+        final long createdAt = System.currentTimeMillis();
+        StudentIndeksResponse indeks;
+        StudentProfileDTO profile;
+        long indeksBytes;
+        long profileBytes;
+
+        long bytes() {
+            return indeksBytes + profileBytes;
+        }
+    }
+}
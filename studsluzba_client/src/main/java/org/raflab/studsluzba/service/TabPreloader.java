@@ -0,0 +1,97 @@
+package org.raflab.studsluzba.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Podaci tabova jednog ekrana (npr. profila studenta) u memoriji, po ključu taba.
+ * start() pušta zahteve za sve tabove odjednom - rangirane, najviše maxConcurrent istovremeno;
+ * tab posle uzima rezultat iz memorije, priključuje se zahtevu u letu, ili ga pokreće preko reda.
+ * Jedna instanca po ekranu; clear() pri promeni studenta.
+ */
+public final class TabPreloader {
+
+    private final Map<String, Object> loaded = new ConcurrentHashMap<>();
+    private final Map<String, Mono<Object>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong fromMemory = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+
+    /**
+     * Zahtevi redom iz ranked (najverovatniji sledeći tab prvi). Vraćeni Disposable otkazuje
+     * one koji još nisu krenuli i odjavljuje se sa onih u letu (prekidaju se ako ih niko drugi ne čeka).
+     */
+    public Disposable start(LinkedHashMap<String, Mono<?>> ranked, int maxConcurrent) {
+        ranked.forEach((key, m) -> pending.put(key, share(key, m)));
+        started.addAndGet(ranked.size());
+
+        return Flux.fromIterable(new ArrayList<>(ranked.keySet()))
+                .flatMap(key -> Mono.defer(() -> {
+                    Mono<Object> p = pending.get(key);
+                    return p != null ? p : Mono.empty();
+                }).onErrorResume(err -> Mono.empty()), Math.max(1, maxConcurrent))
+                .subscribe();
+    }
+
+    /** Podatak iz memorije, zahtev koji je već u letu, ili novi poziv preko fetch. */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> source(String key, Supplier<Mono<T>> fetch) {
+        Object v = loaded.get(key);
+        if (v != null) {
+            fromMemory.incrementAndGet();
+            return Mono.just((T) v);
+        }
+        Mono<Object> p = pending.get(key);
+        if (p != null) {
+            joined.incrementAndGet();
+            return (Mono<T>) p;
+        }
+        return fetch.get().doOnNext(value -> put(key, value));
+    }
+
+    /** Da li tab ima podatak u memoriji ili zahtev u toku. */
+    public boolean has(String key) {
+        return loaded.containsKey(key) || pending.containsKey(key);
+    }
+
+    /** Novo stanje taba (npr. posle unosa uplate), da tab posle ne prikaže staro. */
+    public void put(String key, Object value) {
+        if (value != null) loaded.put(key, value);
+    }
+
+    public void clear() {
+        pending.clear();
+        loaded.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "pokrenuto=" + started + " iz memorije=" + fromMemory + " priključeno=" + joined
+                + " u memoriji=" + loaded.size() + " u toku=" + pending.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Object> share(String key, Mono<?> m) {
+        Object[] self = new Object[1];
+        Mono<Object> shared = ((Mono<Object>) m)
+                .doOnNext(v -> {
+                    // posle clear() (drugi student) zakasneli odgovor ne ulazi u memoriju
+                    if (pending.get(key) == self[0]) loaded.put(key, v);
+                })
+                .doFinally(s -> pending.remove(key, self[0]))
+                // deljen dok ga neko čeka; kad se svi odjave, zahtev se prekida
+                .flux().publish().refCount()
+                .next();
+        self[0] = shared;
+        return shared;
+    }
+}
@@ -10,6 +10,7 @@ import org.raflab.studsluzba.controllers.request.IspitniRokRequest;
 import org.raflab.studsluzba.controllers.response.IspitniRokResponse;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
+import org.raflab.studsluzba.navigation.ViewScope;
 import org.raflab.studsluzba.service.ExamApiService;
 import org.springframework.stereotype.Component;
 
@@ -56,8 +57,9 @@ public class ExamPeriodsController {
     @FXML
     public void refresh() {
         setLoading(true);
-        api.getIspitniRokovi()
-                .subscribe(list -> Platform.runLater(() -> {
+        ViewScope sc = nav.scope();
+        sc.track(api.getIspitniRokovi()
+                .subscribe(list -> Platform.runLater(sc.guard(() -> {
                     table.setItems(FXCollections.observableArrayList(list));
 
                     // uzmi skolskaGodinaId iz roka koji pripada aktivnoj skolskoj godini
@@ -68,10 +70,10 @@ public class ExamPeriodsController {
                             .orElse(null);
 
                     setLoading(false);
-                }), err -> Platform.runLater(() -> {
+                })), err -> Platform.runLater(sc.guard(() -> {
                     setLoading(false);
                     alert("Greška", "Neuspešno učitavanje ispitnih rokova.");
-                }));
+                }))));
     }
 
     @FXML
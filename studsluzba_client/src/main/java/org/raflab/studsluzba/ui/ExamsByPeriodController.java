@@ -13,6 +13,7 @@ import org.raflab.studsluzba.controllers.response.NastavnikResponse;
 import org.raflab.studsluzba.controllers.response.PredmetResponse;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
+import org.raflab.studsluzba.navigation.ViewScope;
 import org.raflab.studsluzba.service.ExamApiService;
 import org.springframework.stereotype.Component;
 
@@ -46,6 +47,8 @@ public class ExamsByPeriodController {
         if (lblRok != null && rok != null) {
             lblRok.setText(rok.getNaziv() + " (" + rok.getDatumPocetka() + " - " + rok.getDatumZavrsetka() + ")");
         }
+        // ispiti prethodnog roka ne ostaju u tabeli dok stižu novi
+        table.getItems().clear();
         refresh();
     }
 
@@ -66,14 +69,15 @@ public class ExamsByPeriodController {
     public void refresh() {
         if (rok == null || rok.getId() == null) return;
         setLoading(true);
-        api.getIspitiByRok(rok.getId())
-                .subscribe(list -> Platform.runLater(() -> {
+        ViewScope sc = nav.scope();
+        sc.track(api.getIspitiByRok(rok.getId())
+                .subscribe(list -> Platform.runLater(sc.guard(() -> {
                     table.setItems(FXCollections.observableArrayList(list));
                     setLoading(false);
-                }), err -> Platform.runLater(() -> {
+                })), err -> Platform.runLater(sc.guard(() -> {
                     setLoading(false);
                     alert("Greška", "Neuspešno učitavanje ispita za rok.");
-                }));
+                }))));
     }
 
     @FXML
@@ -0,0 +1,213 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.raflab.studsluzba.navigation.ViewScope;
+import org.raflab.studsluzba.service.ScrollSource;
+import reactor.core.Disposable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * Beskonačni skrol za TableView: komadi se učitavaju kad se priđe dnu (ili vrhu), a u tabeli
+ * ostaje najviše maxChunks komada - kad se doda novi na jednom kraju, najstariji sa drugog
+ * kraja se izbacuje i pozicija skrola se koriguje da prikaz ne skoči.
+ */
+final class InfiniteScrollTable<T> {
+
+    // koliko blizu ivice (udeo skrola) počinje učitavanje sledećeg komada
+    private static final double EDGE = 0.15;
+
+    private final UiDispatcher ui;
+    private final TableView<T> tbl;
+    private final int chunkSize;
+    private final int maxChunks;
+
+    private ScrollSource<T> source;
+    private ViewScope scope;
+    private final Deque<Loaded> window = new ArrayDeque<>();
+    private Disposable loading;
+    private long generation;
+    private long windowStart;
+    private long total = -1;
+    private ScrollBar hooked;
+    private Runnable onChanged = () -> { };
+
+    private InfiniteScrollTable(UiDispatcher ui, TableView<T> tbl, int chunkSize, int maxChunks) {
+        this.ui = ui;
+        this.tbl = tbl;
+        this.chunkSize = Math.max(10, chunkSize);
+        this.maxChunks = Math.max(2, maxChunks);
+    }
+
+    static <T> InfiniteScrollTable<T> install(UiDispatcher ui, TableView<T> tbl, int chunkSize, int maxChunks) {
+        InfiniteScrollTable<T> s = new InfiniteScrollTable<>(ui, tbl, chunkSize, maxChunks);
+        // skrol bar postoji tek kad tabela dobije skin
+        tbl.skinProperty().addListener((obs, o, n) -> Platform.runLater(s::hookScrollBar));
+        if (tbl.getSkin() != null) Platform.runLater(s::hookScrollBar);
+        return s;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** Poziva se posle svake promene prozora redova (npr. za labelu ili prosek). */
+    void setOnChanged(Runnable onChanged) {
+        this.onChanged = onChanged == null ? () -> { } : onChanged;
+    }
+
+    /**
+     * Novi upit: prozor se prazni; prvi komad može da se prosledi ako je već učitan.
+     * scope (može null) - učitavanja komada se otkazuju kad se napusti ekran.
+     */
+    void start(ScrollSource<T> source, ScrollSource.Chunk<T> first, ViewScope scope) {
+        generation++;
+        if (loading != null) loading.dispose();
+        loading = null;
+
+        this.source = source;
+        this.scope = scope;
+        window.clear();
+        windowStart = 0;
+        total = -1;
+        tbl.getItems().clear();
+
+        if (first != null) {
+            append(first);
+            tbl.scrollTo(0);
+        } else {
+            load(null, true);
+        }
+    }
+
+    /** npr. "51-350 od 1200" */
+    String status() {
+        int n = tbl.getItems().size();
+        if (n == 0) return "0";
+        return (windowStart + 1) + "-" + (windowStart + n) + (total >= 0 ? " od " + total : "");
+    }
+
+    private void hookScrollBar() {
+        for (Node n : tbl.lookupAll(".scroll-bar")) {
+            if (n instanceof ScrollBar && ((ScrollBar) n).getOrientation() == Orientation.VERTICAL && n != hooked) {
+                ScrollBar sb = (ScrollBar) n;
+                sb.valueProperty().addListener((obs, o, v) -> onScroll(sb));
+                hooked = sb;
+            }
+        }
+    }
+
+    private void onScroll(ScrollBar sb) {
+        double range = sb.getMax() - sb.getMin();
+        if (range <= 0 || window.isEmpty()) return;
+
+        double ratio = (sb.getValue() - sb.getMin()) / range;
+        if (ratio >= 1 - EDGE) load(window.peekLast().next, true);
+        else if (ratio <= EDGE) load(window.peekFirst().prev, false);
+    }
+
+    private void load(String cursor, boolean forward) {
+        if (source == null || loading != null) return;
+        if (cursor == null && !window.isEmpty()) return;
+        if (scope != null && !scope.isActive()) return;
+
+        long gen = generation;
+        Disposable[] self = new Disposable[1];
+        self[0] = loading = source.load(cursor, chunkSize)
+                // dispatcher sme da odbaci izmenu (ekran dugo van scene), a otkazan tok je nema -
+                // loading se zato oslobađa uvek, nezavisno od toga da li je komad prikazan
+                .doFinally(s -> Platform.runLater(() -> {
+                    if (gen == generation && loading == self[0]) loading = null;
+                }))
+                .subscribe(
+                        chunk -> ui.run(tbl, () -> {
+                            if (gen != generation) return;
+                            if (loading == self[0]) loading = null;
+                            // isti komad je možda već stigao preko ponovljenog zahteva
+                            if (!atEdge(cursor, forward)) return;
+                            if (forward) append(chunk);
+                            else prepend(chunk);
+                        }),
+                        err -> ui.run(tbl, () -> {
+                            if (gen != generation) return;
+                            if (loading == self[0]) loading = null;
+                            System.out.println(">>> učitavanje redova nije uspelo: " + err.getMessage());
+                        }));
+        if (scope != null) scope.track(loading);
+    }
+
+    /** Da li je cursor i dalje ivica prozora sa koje je komad tražen. */
+    private boolean atEdge(String cursor, boolean forward) {
+        if (window.isEmpty()) return cursor == null;
+        return Objects.equals(cursor, forward ? window.peekLast().next : window.peekFirst().prev);
+    }
+
+    private void append(ScrollSource.Chunk<T> chunk) {
+        int first = firstVisibleIndex();
+        tbl.getItems().addAll(chunk.getRows());
+        window.addLast(new Loaded(chunk));
+        total = chunk.getTotal();
+
+        if (window.size() > maxChunks) {
+            Loaded head = window.pollFirst();
+            tbl.getItems().remove(0, head.size);
+            windowStart += head.size;
+            tbl.scrollTo(Math.max(0, first - head.size));
+        }
+        changed();
+    }
+
+    private void prepend(ScrollSource.Chunk<T> chunk) {
+        int first = firstVisibleIndex();
+        tbl.getItems().addAll(0, chunk.getRows());
+        window.addFirst(new Loaded(chunk));
+        windowStart = Math.max(0, windowStart - chunk.getRows().size());
+        total = chunk.getTotal();
+
+        if (window.size() > maxChunks) {
+            Loaded tail = window.pollLast();
+            int n = tbl.getItems().size();
+            tbl.getItems().remove(n - tail.size, n);
+        }
+        tbl.scrollTo(first + chunk.getRows().size());
+        changed();
+    }
+
+    private void changed() {
+        onChanged.run();
+        // ako sve staje na ekran, skrol bar se ne pojavljuje - sledeći komad se traži odmah
+        Platform.runLater(() -> {
+            if (hooked == null) hookScrollBar();
+            if ((hooked == null || !hooked.isVisible()) && !window.isEmpty()) load(window.peekLast().next, true);
+        });
+    }
+
+    private int firstVisibleIndex() {
+        Node n = tbl.lookup(".virtual-flow");
+        if (n instanceof VirtualFlow) {
+            IndexedCell<?> cell = ((VirtualFlow<?>) n).getFirstVisibleCell();
+            if (cell != null) return cell.getIndex();
+        }
+        return 0;
+    }
+
+    private static final class Loaded {
+        final String prev;
+        final String next;
+        final int size;
+
+        Loaded(ScrollSource.Chunk<?> chunk) {
+            this.prev = chunk.getPrev();
+            this.next = chunk.getNext();
+            this.size = chunk.getRows().size();
+        }
+    }
+}
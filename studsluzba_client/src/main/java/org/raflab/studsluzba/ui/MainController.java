@@ -8,19 +8,32 @@ import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
 import org.raflab.studsluzba.navigation.RouteType;
 import org.raflab.studsluzba.navigation.StudentTab;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 import org.raflab.studsluzba.ui.ProgramDetailsController;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 public class MainController {
 
     private final ApplicationContext ctx;
     private final NavigationService nav;
 
-    public MainController(ApplicationContext ctx, NavigationService nav) {
+    // jedan učitan ekran po FXML-u: kontroleri su singleton-i, pa ionako mogu da drže samo jedan pogled
+    private final boolean viewCache;
+    private final Map<String, CachedView> views = new HashMap<>();
+    private final Map<String, RenderStats> stats = new LinkedHashMap<>();
+
+    public MainController(ApplicationContext ctx, NavigationService nav,
+                          @Value("${app.ui.viewCache:true}") boolean viewCache) {
         this.ctx = ctx;
         this.nav = nav;
+        this.viewCache = viewCache;
     }
 
     @FXML private StackPane contentHost;
@@ -37,69 +50,61 @@ public class MainController {
     }
 
     private void renderRoute(Route route) {
+        long t0 = System.nanoTime();
         try {
             if (route.getType() == RouteType.SEARCH_BY_INDEX) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/SearchStudent.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
+                CachedView v = view("/fxml/SearchStudent.fxml");
 
-                SearchStudentController ctrl = loader.getController();
+                SearchStudentController ctrl = v.controller();
                 ctrl.setInitialIndeksText(route.getSearchText());
 
-                showView(view);
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
             if (route.getType() == RouteType.STUDENT_PROFILE) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/StudentProfileTabs.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
+                CachedView v = view("/fxml/StudentProfileTabs.fxml");
 
-                StudentProfileTabsController ctrl = loader.getController();
+                StudentProfileTabsController ctrl = v.controller();
                 ctrl.setData(route.getIndeks(), route.getProfile());
                 ctrl.selectTab(route.getStudentTab() != null ? route.getStudentTab() : StudentTab.LICNI);
 
-                showView(view);
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
             if (route.getType() == RouteType.EXAM_PERIODS) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ExamPeriods.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
-                showView(view);
+                CachedView v = view("/fxml/ExamPeriods.fxml");
+                // novi ekran učitava listu u initialize; sačuvan prikazuje staru i osvežava je u pozadini
+                if (v.reused) v.<ExamPeriodsController>controller().refresh();
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
             if (route.getType() == RouteType.EXAMS_BY_PERIOD) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ExamsByPeriod.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
+                CachedView v = view("/fxml/ExamsByPeriod.fxml");
 
-                ExamsByPeriodController ctrl = loader.getController();
+                ExamsByPeriodController ctrl = v.controller();
                 ctrl.setRok(route.getIspitniRok());
 
-                showView(view);
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
             if (route.getType() == RouteType.STUDY_PROGRAMS) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/StudyPrograms.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
-                showView(view);
+                CachedView v = view("/fxml/StudyPrograms.fxml");
+                if (v.reused) v.<StudyProgramsController>controller().refresh();
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
             if (route.getType() == RouteType.PROGRAM_DETAILS) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ProgramDetails.fxml"));
-                loader.setControllerFactory(ctx::getBean);
-                Parent view = loader.load();
+                CachedView v = view("/fxml/ProgramDetails.fxml");
 
-                ProgramDetailsController ctrl = loader.getController();
+                ProgramDetailsController ctrl = v.controller();
                 ctrl.setProgram(route.getProgram());  // payload
 
-                showView(view);
+                showView(v, route.getType().name(), t0);
                 return;
             }
 
@@ -109,11 +114,11 @@ public class MainController {
     }
     @FXML
     public void openSearchByName() {
+        long t0 = System.nanoTime();
+        nav.leaveCurrentView();
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/SearchStudentByName.fxml"));
-            loader.setControllerFactory(ctx::getBean);
-            Parent view = loader.load();
-            contentHost.getChildren().setAll(view);
+            // sačuvan ekran zadržava poslednji upit i rezultate
+            showView(view("/fxml/SearchStudentByName.fxml"), "SEARCH_BY_NAME", t0);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -121,11 +126,10 @@ public class MainController {
 
     @FXML
     public void openSearchBySchool() {
+        long t0 = System.nanoTime();
+        nav.leaveCurrentView();
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/SearchStudentBySchool.fxml"));
-            loader.setControllerFactory(ctx::getBean);
-            Parent view = loader.load();
-            contentHost.getChildren().setAll(view);
+            showView(view("/fxml/SearchStudentBySchool.fxml"), "SEARCH_BY_SCHOOL", t0);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -142,7 +146,71 @@ public class MainController {
         nav.navigate(Route.examPeriods());
     }
 
-    private void showView(Parent view) {
-        contentHost.getChildren().setAll(view);
+    /** "SEARCH_BY_INDEX: 3/4 iz keša, prosek 2 ms (novi 85 ms), ..." */
+    public String renderStats() {
+        StringBuilder sb = new StringBuilder();
+        stats.forEach((k, st) -> sb.append(sb.length() == 0 ? "" : ", ").append(k).append(": ").append(st));
+        return sb.toString();
+    }
+
+    /** Pogled iz keša ili, prvi put (ili kad je keš isključen), novo učitavanje FXML-a. */
+    private CachedView view(String fxml) throws IOException {
+        CachedView v = viewCache ? views.get(fxml) : null;
+        if (v != null) {
+            v.reused = true;
+            return v;
+        }
+
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
+        loader.setControllerFactory(ctx::getBean);
+        Parent view = loader.load();
+
+        v = new CachedView(view, loader.getController());
+        if (viewCache) views.put(fxml, v);
+        return v;
+    }
+
+    private void showView(CachedView v, String name, long t0) {
+        contentHost.getChildren().setAll(v.view);
+
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        RenderStats st = stats.computeIfAbsent(name, k -> new RenderStats());
+        st.record(v.reused, ms);
+        System.out.println(">>> prikaz " + name + (v.reused ? " (keš)" : " (FXML)") + ": " + ms + " ms | " + st);
+    }
+
+    private static final class CachedView {
+        final Parent view;
+        final Object controller;
+        boolean reused;
+
+        CachedView(Parent view, Object controller) {
+            this.view = view;
+            this.controller = controller;
+        }
+
+        @SuppressWarnings("unchecked")
+        <C> C controller() {
+            return (C) controller;
+        }
+    }
+
+    private static final class RenderStats {
+        long hits;
+        long misses;
+        long hitMs;
+        long missMs;
+
+        void record(boolean hit, long ms) {
+            if (hit) { hits++; hitMs += ms; }
+            else { misses++; missMs += ms; }
+        }
+
+        @Override
+        public String toString() {
+            return hits + "/" + (hits + misses) + " iz keša, prosek "
+                    + (hits == 0 ? "-" : String.valueOf(hitMs / hits)) + " ms (novi "
+                    + (misses == 0 ? "-" : String.valueOf(missMs / misses)) + " ms)";
+        }
     }
 }
@@ -10,6 +10,7 @@ import org.raflab.studsluzba.controllers.response.StudijskiProgramResponse;
 import org.raflab.studsluzba.dto.response.ProsecnaOcenaResponse;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
+import org.raflab.studsluzba.navigation.ViewScope;
 import org.raflab.studsluzba.service.ProgramApiService;
 import org.springframework.stereotype.Component;
 
@@ -47,6 +48,9 @@ public class ProgramDetailsController {
         if (lblProgram != null) {
             lblProgram.setText(program.getOznaka() + " - " + program.getNaziv());
         }
+        // podaci prethodnog programa ne ostaju prikazani dok stižu novi
+        tblPredmeti.getItems().clear();
+        tblProsek.getItems().clear();
         refreshPredmeti();
         preloadPredmetiZaProsek();
     }
@@ -87,32 +91,34 @@ public class ProgramDetailsController {
         if (program == null) return;
 
         setLoading(true);
-        api.getPredmetiNaProgramu(program.getId())
-                .subscribe(list -> Platform.runLater(() -> {
+        ViewScope sc = nav.scope();
+        sc.track(api.getPredmetiNaProgramu(program.getId())
+                .subscribe(list -> Platform.runLater(sc.guard(() -> {
                     System.out.println("REFRESH PREDMETI size=" + (list == null ? 0 : list.size()));
 
                     tblPredmeti.getItems().setAll(list);
                     tblPredmeti.refresh();
 
                     setLoading(false);
-                }), err -> Platform.runLater(() -> {
+                })), err -> Platform.runLater(sc.guard(() -> {
                     setLoading(false);
                     err.printStackTrace();
                     alert("Greška", "Neuspešno učitavanje predmeta na programu.");
-                }));
+                }))));
     }
 
     private void preloadPredmetiZaProsek() {
         setLoading(true);
-        api.getSviPredmeti()
-                .subscribe(list -> Platform.runLater(() -> {
+        ViewScope sc = nav.scope();
+        sc.track(api.getSviPredmeti()
+                .subscribe(list -> Platform.runLater(sc.guard(() -> {
                     cbPredmetZaProsek.setItems(FXCollections.observableArrayList(list));
                     setLoading(false);
-                }), err -> Platform.runLater(() -> {
+                })), err -> Platform.runLater(sc.guard(() -> {
                     setLoading(false);
                     err.printStackTrace();
                     alert("Greška", "Neuspešno učitavanje liste predmeta.");
-                }));
+                }))));
     }
 
     @FXML
@@ -0,0 +1,222 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pregled PDF-a u aplikaciji. Strane se rasterizuju tek kad uđu u vidljivi deo liste
+ * (ListView virtualizuje ćelije), pa se prva strana vidi pre nego što se obradi ceo dokument.
+ */
+public class ReportPreviewWindow {
+
+    private static final float SCALE = 1.25f;
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private final Stage stage = new Stage();
+    private final byte[] pdf;
+    private final String fileNamePrefix;
+    private final Path saveDir;
+
+    private final PDDocument document;
+    private final PDFRenderer renderer;
+    private final PDRectangle[] pageSizes;
+
+    // PDFRenderer nije thread-safe -> jedna pozadinska nit po prozoru
+    private final ExecutorService renderThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pdf-preview");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Integer, WritableImage> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, WritableImage> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    public static void show(Window owner, String title, String fileNamePrefix, byte[] pdf, Path saveDir) throws Exception {
+        new ReportPreviewWindow(owner, title, fileNamePrefix, pdf, saveDir).stage.show();
+    }
+
+    private ReportPreviewWindow(Window owner, String title, String fileNamePrefix, byte[] pdf, Path saveDir) throws Exception {
+        this.pdf = pdf;
+        this.fileNamePrefix = fileNamePrefix;
+        this.saveDir = saveDir;
+        this.document = PDDocument.load(pdf);
+        this.renderer = new PDFRenderer(document);
+
+        // dimenzije unapred, da FX nit ne dira dokument dok ga pozadinska nit renderuje
+        this.pageSizes = new PDRectangle[document.getNumberOfPages()];
+        for (int i = 0; i < pageSizes.length; i++) pageSizes[i] = document.getPage(i).getMediaBox();
+
+        ListView<Integer> pages = new ListView<>();
+        pages.getItems().setAll(IntStream.range(0, pageSizes.length).boxed().collect(Collectors.toList()));
+        pages.setCellFactory(lv -> new PageCell());
+        pages.setFocusTraversable(false);
+
+        Button btnSave = new Button("Sačuvaj PDF...");
+        btnSave.setOnAction(e -> onSave());
+        Button btnExternal = new Button("Otvori u spoljnom programu");
+        btnExternal.setOnAction(e -> onOpenExternal());
+        Label lblPages = new Label("Strana: " + pageSizes.length);
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
+        HBox toolbar = new HBox(10, btnSave, btnExternal, spacer, lblPages);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+        toolbar.setPadding(new Insets(8));
+
+        BorderPane root = new BorderPane(pages);
+        root.setTop(toolbar);
+
+        if (owner != null) stage.initOwner(owner);
+        stage.setTitle(title);
+        stage.setScene(new Scene(root, 820, 900));
+        stage.setOnHidden(e -> close());
+    }
+
+    private void onSave() {
+        FileChooser fc = new FileChooser();
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF", "*.pdf"));
+        if (saveDir != null && Files.isDirectory(saveDir)) fc.setInitialDirectory(saveDir.toFile());
+        fc.setInitialFileName(defaultFileName());
+
+        File file = fc.showSaveDialog(stage);
+        if (file == null) return;
+        try {
+            Files.write(file.toPath(), pdf);
+        } catch (Exception ex) {
+            alert(Alert.AlertType.ERROR, "Ne mogu da sačuvam PDF: " + ex.getMessage());
+        }
+    }
+
+    private void onOpenExternal() {
+        try {
+            Path dir = saveDir != null ? saveDir : Path.of(System.getProperty("java.io.tmpdir"));
+            Files.createDirectories(dir);
+            Path file = dir.resolve(defaultFileName());
+            Files.write(file, pdf);
+
+            if (java.awt.Desktop.isDesktopSupported()) {
+                java.awt.Desktop.getDesktop().open(file.toFile());
+            } else {
+                alert(Alert.AlertType.INFORMATION, "PDF je sačuvan na:\n" + file);
+            }
+        } catch (Exception ex) {
+            alert(Alert.AlertType.ERROR, "Ne mogu da otvorim PDF: " + ex.getMessage());
+        }
+    }
+
+    private String defaultFileName() {
+        return fileNamePrefix + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".pdf";
+    }
+
+    private void close() {
+        renderThread.shutdownNow();
+        try {
+            document.close();
+        } catch (Exception ignore) {
+            // nema šta da se uradi
+        }
+    }
+
+    private void alert(Alert.AlertType type, String msg) {
+        Alert a = new Alert(type);
+        a.initOwner(stage);
+        a.setHeaderText(null);
+        a.setContentText(msg);
+        a.showAndWait();
+    }
+
+    private WritableImage renderPage(int index) throws Exception {
+        BufferedImage img = renderer.renderImage(index, SCALE);
+        int w = img.getWidth();
+        int h = img.getHeight();
+        int[] argb = img.getRGB(0, 0, w, h, null, 0, w);
+
+        WritableImage fx = new WritableImage(w, h);
+        fx.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+        return fx;
+    }
+
+    private final class PageCell extends ListCell<Integer> {
+        private final ImageView view = new ImageView();
+        private final ProgressIndicator pi = new ProgressIndicator();
+        private final StackPane box = new StackPane(view, pi);
+
+        PageCell() {
+            pi.setMaxSize(40, 40);
+            box.setPadding(new Insets(8));
+            setAlignment(Pos.CENTER);
+        }
+
+        @Override
+        protected void updateItem(Integer index, boolean empty) {
+            super.updateItem(index, empty);
+            if (empty || index == null) {
+                setGraphic(null);
+                return;
+            }
+
+            // rezerviši prostor veličine strane da skrol ne "skače"
+            PDRectangle size = pageSizes[index];
+            box.setMinSize(size.getWidth() * SCALE, size.getHeight() * SCALE);
+            setGraphic(box);
+
+            WritableImage cached = cache.get(index);
+            if (cached != null) {
+                view.setImage(cached);
+                pi.setVisible(false);
+                return;
+            }
+
+            view.setImage(null);
+            pi.setVisible(true);
+            renderThread.submit(() -> {
+                if (!index.equals(getItem())) return; // ćelija je u međuvremenu reciklirana
+                try {
+                    WritableImage img = renderPage(index);
+                    Platform.runLater(() -> {
+                        cache.put(index, img);
+                        if (index.equals(getItem())) {
+                            view.setImage(img);
+                            pi.setVisible(false);
+                        }
+                    });
+                } catch (Exception ex) {
+                    Platform.runLater(() -> pi.setVisible(false));
+                }
+            });
+        }
+    }
+}
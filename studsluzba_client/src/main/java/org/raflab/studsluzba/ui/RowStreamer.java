@@ -0,0 +1,61 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.scene.Node;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dodavanje redova u tabelu/listu kako stižu sa servera (bodyToFlux), u paketima -
+ * prvi redovi posle najviše BATCH_DELAY, a UiDispatcher spaja pakete koji stignu u istom pulsu.
+ */
+final class RowStreamer {
+
+    private static final int BATCH_ROWS = 200;
+    private static final Duration BATCH_DELAY = Duration.ofMillis(40);
+
+    private RowStreamer() {
+    }
+
+    /**
+     * Poziva se sa FX niti, posle pražnjenja items. Vraćeni Disposable prekida zahtev
+     * i odbacuje pakete koji još nisu primenjeni (npr. kad se promeni izbor pa krene novi upit).
+     */
+    static <T> Disposable appendTo(UiDispatcher ui, Node owner, List<T> items, Flux<T> rows,
+                                   Consumer<Integer> onComplete, Consumer<Throwable> onError) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger count = new AtomicInteger();
+
+        Disposable d = rows
+                .bufferTimeout(BATCH_ROWS, BATCH_DELAY)
+                .subscribe(
+                        batch -> {
+                            count.addAndGet(batch.size());
+                            ui.append(owner, items, batch, () -> !cancelled.get());
+                        },
+                        err -> ui.run(owner, () -> {
+                            if (!cancelled.get()) onError.accept(err);
+                        }),
+                        () -> ui.run(owner, () -> {
+                            if (!cancelled.get()) onComplete.accept(count.get());
+                        }));
+
+        return new Disposable() {
+            @Override
+            public void dispose() {
+                cancelled.set(true);
+                d.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return cancelled.get() || d.isDisposed();
+            }
+        };
+    }
+}
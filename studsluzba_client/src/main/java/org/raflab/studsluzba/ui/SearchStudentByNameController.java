@@ -1,5 +1,6 @@
 package org.raflab.studsluzba.ui;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
@@ -10,22 +11,73 @@ import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
 import org.raflab.studsluzba.navigation.StudentTab;
+import org.raflab.studsluzba.navigation.ViewScope;
 import org.raflab.studsluzba.service.PageResponse;
+import org.raflab.studsluzba.service.PagedLoader;
+import org.raflab.studsluzba.service.ProfilePrefetcher;
+import org.raflab.studsluzba.service.ScrollSource;
 import org.raflab.studsluzba.service.StudentApiService;
+import org.raflab.studsluzba.service.StudentDirectoryIndex;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class SearchStudentByNameController {
 
     private final StudentApiService api;
     private final NavigationService nav;
-
-    public SearchStudentByNameController(StudentApiService api, NavigationService nav) {
+    private final ProfilePrefetcher prefetcher;
+    private final StudentDirectoryIndex directory;
+    private final UiDispatcher ui;
+
+    // pretraga dok se kuca: posle pauze od debounceMs, novi upit otkazuje prethodni zahtev
+    private final boolean incremental;
+    private final long debounceMs;
+    private final boolean debugOverlay;
+
+    // posećene strane po upitu (kratko, do pageTtlSeconds) + prefetch susednih; veličina strane prati visinu tabele
+    private final PagedLoader<StudentDTO> pages;
+    private final boolean adaptivePageSize;
+
+    // umesto strana: komadi se učitavaju skrolom, u tabeli ostaje klizni prozor redova
+    private final boolean infiniteScroll;
+    private final int chunkSize;
+    private final int maxChunks;
+    private InfiniteScrollTable<StudentDTO> scroll;
+
+    public SearchStudentByNameController(StudentApiService api, NavigationService nav, ProfilePrefetcher prefetcher,
+                                         StudentDirectoryIndex directory, UiDispatcher ui,
+                                         @Value("${app.search.incremental:true}") boolean incremental,
+                                         @Value("${app.search.debounceMs:250}") long debounceMs,
+                                         @Value("${app.search.debugOverlay:false}") boolean debugOverlay,
+                                         @Value("${app.paging.cachePages:50}") int cachePages,
+                                         @Value("${app.paging.prefetch:true}") boolean prefetchPages,
+                                         @Value("${app.search.pageTtlSeconds:60}") long pageTtlSeconds,
+                                         @Value("${app.paging.adaptive:true}") boolean adaptivePageSize,
+                                         @Value("${app.paging.infiniteScroll:false}") boolean infiniteScroll,
+                                         @Value("${app.paging.chunkSize:50}") int chunkSize,
+                                         @Value("${app.paging.maxChunks:6}") int maxChunks) {
         this.api = api;
         this.nav = nav;
+        this.prefetcher = prefetcher;
+        this.directory = directory;
+        this.ui = ui;
+        this.incremental = incremental;
+        this.debounceMs = Math.max(0, debounceMs);
+        this.debugOverlay = debugOverlay;
+        this.pages = new PagedLoader<>(cachePages, prefetchPages, Duration.ofSeconds(Math.max(0, pageTtlSeconds)));
+        this.adaptivePageSize = adaptivePageSize && !infiniteScroll;
+        this.infiniteScroll = infiniteScroll;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
     }
 
     @FXML private TextField txtIme;
@@ -36,6 +88,7 @@ public class SearchStudentByNameController {
 
     @FXML private ProgressIndicator progress;
     @FXML private Label lblMsg;
+    @FXML private Label lblDebug;
 
     @FXML private TableView<StudentDTO> tbl;
     @FXML private TableColumn<StudentDTO, String> colIme;
@@ -50,6 +103,14 @@ public class SearchStudentByNameController {
     private int page = 0;
     private int size = 10;
     private int totalPages = 1;
+    private boolean searched;
+    private final PauseTransition resizeDelay = new PauseTransition(javafx.util.Duration.millis(200));
+
+    private final AtomicLong seq = new AtomicLong();
+    private long latestSeq;          // samo FX nit
+    private long staleDropped;
+    private FluxSink<Query> queries;
+    private Disposable pipeline;
 
     @FXML
     public void initialize() {
@@ -58,8 +119,11 @@ public class SearchStudentByNameController {
         colIndeks.setCellValueFactory(c -> new SimpleStringProperty(formatIndeks(c.getValue())));
         colAktivan.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().isAktivanIndeks() ? "DA" : "NE"));
 
+        // profil se učitava čim je red selektovan/pod mišem, pre dvoklika
+        StudentRowPrefetch rowPrefetch = StudentRowPrefetch.install(tbl, prefetcher);
         tbl.setRowFactory(tv -> {
             TableRow<StudentDTO> row = new TableRow<>();
+            rowPrefetch.attach(row);
             row.setOnMouseClicked(e -> {
                 if (e.getClickCount() == 2 && !row.isEmpty()) {
                     openSelected(row.getItem());
@@ -68,20 +132,122 @@ public class SearchStudentByNameController {
             return row;
         });
 
+        if (infiniteScroll) {
+            scroll = InfiniteScrollTable.install(ui, tbl, chunkSize, maxChunks);
+            scroll.setOnChanged(() -> lblPage.setText(scroll.status()));
+            size = scroll.getChunkSize();
+            btnPrev.setVisible(false);
+            btnPrev.setManaged(false);
+            btnNext.setVisible(false);
+            btnNext.setManaged(false);
+        }
+
+        startPipeline();
+
         // Enter = pretraga
-        txtIme.setOnAction(e -> onSearch());
-        txtPrezime.setOnAction(e -> onSearch());
-        txtProgram.setOnAction(e -> onSearch());
-        txtGodina.setOnAction(e -> onSearch());
-        txtBroj.setOnAction(e -> onSearch());
+        for (TextField tf : List.of(txtIme, txtPrezime, txtProgram, txtGodina, txtBroj)) {
+            tf.setOnAction(e -> onSearch());
+            if (incremental) tf.textProperty().addListener((obs, o, n) -> onTyped());
+        }
+
+        if (adaptivePageSize) {
+            resizeDelay.setOnFinished(e -> adaptPageSize());
+            tbl.heightProperty().addListener((obs, o, n) -> resizeDelay.playFromStart());
+        }
+
+        lblDebug.setVisible(debugOverlay);
+        lblDebug.setManaged(debugOverlay);
 
         refreshPager();
     }
 
+    private void startPipeline() {
+        // kontroler je singleton, a FXML se učitava pri svakom otvaranju ekrana
+        if (pipeline != null) pipeline.dispose();
+
+        pipeline = Flux.<Query>create(sink -> queries = sink)
+                .sampleTimeout(q -> q.immediate ? Mono.just(0L) : Mono.delay(Duration.ofMillis(debounceMs)))
+                .switchMap(q -> search(q)
+                        .doOnSubscribe(x -> q.sentNanos = System.nanoTime())
+                        .onErrorResume(err -> Mono.just(new Result(q, null, err, false))))
+                // važi poslednji rezultat za tabelu; ekran koji je napušten ga ne prima
+                .subscribe(res -> ui.set(tbl, () -> applyResult(res)));
+    }
+
+    /**
+     * Pogoci iz lokalnog imenika se prikazuju odmah, a server se i tada pita u pozadini: njegov odgovor
+     * se spaja u imenik i strana se ponovo prikazuje ako se lokalni rezultat promenio
+     * (npr. student upisan posle poslednjeg učitavanja imenika).
+     */
+    private Flux<Result> search(Query q) {
+        return Flux.defer(() -> {
+            PageResponse<StudentDTO> local = localPage(q, q.page, q.size);
+            if (local == null) {
+                return fromServer(q, q.page, q.size).map(resp -> new Result(q, resp, null, false)).flux();
+            }
+
+            Mono<Result> revalidated = fromServer(q, q.page, q.size)
+                    .map(resp -> localPage(q, q.page, q.size))
+                    .filter(again -> !sameRows(local, again))
+                    .map(again -> new Result(q, again, null, false))
+                    // lokalni rezultat je već prikazan; greška servera ga ne briše
+                    .onErrorResume(err -> Mono.empty());
+            return Flux.concat(Mono.just(new Result(q, local, null, true)), revalidated);
+        });
+    }
+
+    /** Komadi za beskonačni skrol: lokalni imenik ako ima pogodaka (prvi komad je već proveren u search), inače server. */
+    private Mono<PageResponse<StudentDTO>> fetch(Query q, int page, int size) {
+        return Mono.defer(() -> {
+            PageResponse<StudentDTO> local = localPage(q, page, size);
+            return local != null ? Mono.just(local) : fromServer(q, page, size);
+        });
+    }
+
+    private PageResponse<StudentDTO> localPage(Query q, int page, int size) {
+        return directory.search(q.ime, q.prezime, q.program, q.godina, q.broj, page, size);
+    }
+
+    private Mono<PageResponse<StudentDTO>> fromServer(Query q, int page, int size) {
+        return pages.page(q.key(), page, size,
+                        (p, s) -> api.searchStudents(q.ime, q.prezime, q.program, q.godina, q.broj, p, s))
+                .doOnNext(resp -> directory.merge(resp.getContent()));
+    }
+
+    /** Imenik posle merge-a daje nove objekte samo za izmenjene studente, pa je poređenje po referenci dovoljno. */
+    private static boolean sameRows(PageResponse<StudentDTO> a, PageResponse<StudentDTO> b) {
+        if (b == null) return true;
+        if (a.getTotalElements() != b.getTotalElements()) return false;
+        List<StudentDTO> x = a.getContent() == null ? List.of() : a.getContent();
+        List<StudentDTO> y = b.getContent() == null ? List.of() : b.getContent();
+        if (x.size() != y.size()) return false;
+        for (int i = 0; i < x.size(); i++) {
+            if (x.get(i) != y.get(i)) return false;
+        }
+        return true;
+    }
+
+    private void onTyped() {
+        boolean allBlank = List.of(txtIme, txtPrezime, txtProgram, txtGodina, txtBroj).stream()
+                .allMatch(tf -> tf.getText() == null || tf.getText().isBlank());
+        if (allBlank) {
+            // prazna forma: ništa ne šaljemo, a odgovor koji je eventualno u letu postaje zastareo
+            latestSeq = seq.incrementAndGet();
+            progress.setVisible(false);
+            return;
+        }
+        lblMsg.setText("");
+        submit(0, false);
+    }
+
     @FXML
     public void onSearch() {
         lblMsg.setText("");
-        loadPage(0);
+        // izričita pretraga (dugme/Enter) uvek ide na server - novi ili preimenovani studenti;
+        // Prev/Next i kucanje i dalje koriste strane iz memorije
+        Query q = query(0, true);
+        pages.invalidate(q.key());
+        loadPage(q);
     }
 
     @FXML
@@ -95,35 +261,75 @@ public class SearchStudentByNameController {
     }
 
     private void loadPage(int newPage) {
+        loadPage(query(newPage, true));
+    }
+
+    private void loadPage(Query q) {
+        // strana iz memorije stiže odmah, nema potrebe za blokiranjem tabele
+        if (pages.peek(q.key(), q.page, q.size) == null) {
+            tbl.setDisable(true);
+            btnPrev.setDisable(true);
+            btnNext.setDisable(true);
+        }
+        submit(q);
+    }
+
+    private void submit(int newPage, boolean immediate) {
+        submit(query(newPage, immediate));
+    }
+
+    private void submit(Query q) {
+        latestSeq = q.seq;
+        searched = true;
         progress.setVisible(true);
-        tbl.setDisable(true);
-        btnPrev.setDisable(true);
-        btnNext.setDisable(true);
-
-        Integer godina = parseIntOrNull(txtGodina.getText());
-        Integer broj = parseIntOrNull(txtBroj.getText());
-
-        api.searchStudents(
-                        txtIme.getText(),
-                        txtPrezime.getText(),
-                        txtProgram.getText(),
-                        godina,
-                        broj,
-                        newPage,
-                        size
-                )
-                .subscribe(
-                        resp -> Platform.runLater(() -> {
-                            applyPage(resp);
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                        }),
-                        err -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            showError("Greška pri pretrazi: " + err.getMessage());
-                        })
-                );
+        queries.next(q);
+    }
+
+    private Query query(int newPage, boolean immediate) {
+        return new Query(seq.incrementAndGet(), immediate, newPage, size,
+                txtIme.getText(), txtPrezime.getText(), txtProgram.getText(),
+                parseIntOrNull(txtGodina.getText()), parseIntOrNull(txtBroj.getText()));
+    }
+
+    /** Nova veličina strane zadržava prvi prikazani red na ekranu. */
+    private void adaptPageSize() {
+        int rows = TableViewport.rowsThatFit(tbl, 5, 100);
+        if (rows == size) return;
+
+        int firstRow = page * size;
+        size = rows;
+        if (searched) loadPage(firstRow / size);
+    }
+
+    private void applyResult(Result res) {
+        // switchMap otkazuje stari zahtev, ali odgovor može već da čeka u runLater redu
+        if (res.query.seq != latestSeq) {
+            staleDropped++;
+            return;
+        }
+
+        progress.setVisible(false);
+        tbl.setDisable(false);
+
+        if (res.error != null) {
+            if (res.query.immediate) showError("Greška pri pretrazi: " + res.error.getMessage());
+            else lblMsg.setText("Greška pri pretrazi: " + res.error.getMessage());
+            refreshPager();
+        } else if (scroll != null) {
+            Query q = res.query;
+            scroll.start(ScrollSource.fromPages((p, s) -> fetch(q, p, s)), ScrollSource.Chunk.ofPage(res.page), null);
+            if (res.page.getTotalElements() == 0) lblMsg.setText("Nema rezultata za date kriterijume.");
+        } else {
+            applyPage(res.page);
+        }
+
+        if (debugOverlay) {
+            long now = System.nanoTime();
+            long totalMs = (now - res.query.createdNanos) / 1_000_000;
+            long serverMs = res.query.sentNanos > 0 ? (res.receivedNanos - res.query.sentNanos) / 1_000_000 : 0;
+            lblDebug.setText("#" + res.query.seq + "  " + totalMs + " ms od unosa (" + (res.local ? "lokalno " : "server ") + serverMs + " ms)"
+                    + "  odbačeno zastarelih: " + staleDropped);
+        }
     }
 
     private void applyPage(PageResponse<StudentDTO> resp) {
@@ -160,19 +366,66 @@ public class SearchStudentByNameController {
         Mono<StudentIndeksResponse> mIndeks = api.getStudentIndeks(indeksId);
         Mono<StudentProfileDTO> mProfile = api.getProfile(indeksId);
 
-        Mono.zip(mIndeks, mProfile)
+        // ako korisnik ode sa pretrage pre odgovora, zakasneli rezultat ga ne sme prebaciti na profil
+        ViewScope sc = nav.scope();
+        sc.track(Mono.zip(mIndeks, mProfile)
+                // i kad je otkazano napuštanjem ekrana - sačuvan ekran ne sme ostati zaključan kad se korisnik vrati
+                .doFinally(s -> Platform.runLater(() -> {
+                    progress.setVisible(false);
+                    tbl.setDisable(false);
+                }))
                 .subscribe(
-                        tup -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            nav.navigate(Route.studentProfile(tup.getT1(), tup.getT2(), StudentTab.LICNI));
-                        }),
-                        err -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            showError("Ne mogu da otvorim profil: " + err.getMessage());
-                        })
-                );
+                        tup -> Platform.runLater(sc.guard(() ->
+                                nav.navigate(Route.studentProfile(tup.getT1(), tup.getT2(), StudentTab.LICNI)))),
+                        err -> Platform.runLater(sc.guard(() ->
+                                showError("Ne mogu da otvorim profil: " + err.getMessage())))
+                ));
+    }
+
+    private static final class Query {
+        final long seq;
+        final boolean immediate;
+        final int page;
+        final int size;
+        final String ime;
+        final String prezime;
+        final String program;
+        final Integer godina;
+        final Integer broj;
+        final long createdNanos = System.nanoTime();
+        volatile long sentNanos;
+
+        Query(long seq, boolean immediate, int page, int size, String ime, String prezime, String program, Integer godina, Integer broj) {
+            this.seq = seq;
+            this.immediate = immediate;
+            this.page = page;
+            this.size = size;
+            this.ime = ime;
+            this.prezime = prezime;
+            this.program = program;
+            this.godina = godina;
+            this.broj = broj;
+        }
+
+        /** Kriterijumi bez strane - ključ za keš strana. */
+        String key() {
+            return "search|" + safe(ime).trim() + "|" + safe(prezime).trim() + "|" + safe(program).trim() + "|" + godina + "|" + broj;
+        }
+    }
+
+    private static final class Result {
+        final Query query;
+        final PageResponse<StudentDTO> page;
+        final Throwable error;
+        final boolean local;
+        final long receivedNanos = System.nanoTime();
+
+        Result(Query query, PageResponse<StudentDTO> page, Throwable error, boolean local) {
+            this.query = query;
+            this.page = page;
+            this.error = error;
+            this.local = local;
+        }
     }
 
     private static Integer parseIntOrNull(String s) {
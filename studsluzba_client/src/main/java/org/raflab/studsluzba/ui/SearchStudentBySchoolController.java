@@ -11,8 +11,11 @@ import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
 import org.raflab.studsluzba.navigation.StudentTab;
+import org.raflab.studsluzba.navigation.ViewScope;
+import org.raflab.studsluzba.service.ProfilePrefetcher;
 import org.raflab.studsluzba.service.StudentApiService;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -22,10 +25,15 @@ public class SearchStudentBySchoolController {
 
     private final StudentApiService api;
     private final NavigationService nav;
+    private final ProfilePrefetcher prefetcher;
+    private final UiDispatcher ui;
 
-    public SearchStudentBySchoolController(StudentApiService api, NavigationService nav) {
+    public SearchStudentBySchoolController(StudentApiService api, NavigationService nav, ProfilePrefetcher prefetcher,
+                                           UiDispatcher ui) {
         this.api = api;
         this.nav = nav;
+        this.prefetcher = prefetcher;
+        this.ui = ui;
     }
 
     @FXML private ComboBox<SrednjaSkolaResponse> cmbSkole;
@@ -38,6 +46,8 @@ public class SearchStudentBySchoolController {
     @FXML private TableColumn<StudentDTO, String> colIndeks;
     @FXML private TableColumn<StudentDTO, String> colAktivan;
 
+    private Disposable rows;
+
     @FXML
     public void initialize() {
         colIme.setCellValueFactory(c -> new SimpleStringProperty(safe(c.getValue().getIme())));
@@ -45,8 +55,11 @@ public class SearchStudentBySchoolController {
         colIndeks.setCellValueFactory(c -> new SimpleStringProperty(formatIndeks(c.getValue())));
         colAktivan.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().isAktivanIndeks() ? "DA" : "NE"));
 
+        // profil se učitava čim je red selektovan/pod mišem, pre dvoklika
+        StudentRowPrefetch rowPrefetch = StudentRowPrefetch.install(tbl, prefetcher);
         tbl.setRowFactory(tv -> {
             TableRow<StudentDTO> row = new TableRow<>();
+            rowPrefetch.attach(row);
             row.setOnMouseClicked(e -> {
                 if (e.getClickCount() == 2 && !row.isEmpty()) openSelected(row.getItem());
             });
@@ -93,23 +106,20 @@ public class SearchStudentBySchoolController {
             return;
         }
 
+        // velike škole imaju hiljade studenata: redovi se dodaju u paketima kako stižu
+        if (rows != null) rows.dispose();
+        tbl.getItems().clear();
         progress.setVisible(true);
-        tbl.setDisable(true);
 
-        api.getStudentiPoSrednjojSkoli(skola.getId())
-                .subscribe(
-                        list -> Platform.runLater(() -> {
-                            tbl.getItems().setAll(list == null ? List.of() : list);
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            if (list == null || list.isEmpty()) lblMsg.setText("Nema rezultata.");
-                        }),
-                        err -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            showError("Greška pri pretrazi: " + err.getMessage());
-                        })
-                );
+        rows = RowStreamer.appendTo(ui, tbl, tbl.getItems(), api.streamStudentiPoSrednjojSkoli(skola.getId()),
+                n -> {
+                    progress.setVisible(false);
+                    if (n == 0) lblMsg.setText("Nema rezultata.");
+                },
+                err -> {
+                    progress.setVisible(false);
+                    showError("Greška pri pretrazi: " + err.getMessage());
+                });
     }
 
     private void openSelected(StudentDTO dto) {
@@ -126,19 +136,20 @@ public class SearchStudentBySchoolController {
         Mono<StudentIndeksResponse> mIndeks = api.getStudentIndeks(indeksId);
         Mono<StudentProfileDTO> mProfile = api.getProfile(indeksId);
 
-        Mono.zip(mIndeks, mProfile)
+        // ako korisnik ode sa pretrage pre odgovora, zakasneli rezultat ga ne sme prebaciti na profil
+        ViewScope sc = nav.scope();
+        sc.track(Mono.zip(mIndeks, mProfile)
+                // i kad je otkazano napuštanjem ekrana - sačuvan ekran ne sme ostati zaključan kad se korisnik vrati
+                .doFinally(s -> Platform.runLater(() -> {
+                    progress.setVisible(false);
+                    tbl.setDisable(false);
+                }))
                 .subscribe(
-                        tup -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            nav.navigate(Route.studentProfile(tup.getT1(), tup.getT2(), StudentTab.LICNI));
-                        }),
-                        err -> Platform.runLater(() -> {
-                            progress.setVisible(false);
-                            tbl.setDisable(false);
-                            showError("Ne mogu da otvorim profil: " + err.getMessage());
-                        })
-                );
+                        tup -> Platform.runLater(sc.guard(() ->
+                                nav.navigate(Route.studentProfile(tup.getT1(), tup.getT2(), StudentTab.LICNI)))),
+                        err -> Platform.runLater(sc.guard(() ->
+                                showError("Ne mogu da otvorim profil: " + err.getMessage())))
+                ));
     }
 
     private static String formatSkola(SrednjaSkolaResponse s) {
@@ -6,22 +6,28 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
+import org.raflab.studsluzba.model.dtos.StudentDTO;
 import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
+import org.raflab.studsluzba.navigation.ViewScope;
 import org.raflab.studsluzba.navigation.StudentTab;
 import org.raflab.studsluzba.service.StudentApiService;
+import org.raflab.studsluzba.service.StudentDirectoryIndex;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 @Component
 public class SearchStudentController {
 
     private final StudentApiService api;
     private final NavigationService nav;
+    private final StudentDirectoryIndex directory;
 
-    public SearchStudentController(StudentApiService api, NavigationService nav) {
+    public SearchStudentController(StudentApiService api, NavigationService nav, StudentDirectoryIndex directory) {
         this.api = api;
         this.nav = nav;
+        this.directory = directory;
     }
 
     @FXML private TextField txtIndeks;
@@ -29,14 +35,16 @@ public class SearchStudentController {
     @FXML private ProgressIndicator progress;
 
     public void setInitialIndeksText(String text) {
-        if (text != null && !text.trim().isEmpty()) {
-            txtIndeks.setText(text);
-        }
+        // ekran se čuva između navigacija - prazna ruta znači prazno polje
+        txtIndeks.setText(text == null ? "" : text);
+        lblMsg.setText("");
+        progress.setVisible(false);
     }
 
     private String normalizeIndeksShort(String input) {
         if (input == null) return "";
-        String s = input.trim().toUpperCase();
+        // ćirilica (РН 20/12) i dijakritici se svode na latinicu
+        String s = StudentDirectoryIndex.fold(input).toUpperCase();
         s = s.replaceAll("\\s+", "");
 
         if (s.matches("^[A-Z]+\\d{2}/\\d+$")) {
@@ -91,17 +99,25 @@ public class SearchStudentController {
         lblMsg.setText("");
         progress.setVisible(true);
 
-        api.fastSearchByIndex(indeks)
+        // indeks iz lokalnog imenika ide direktno po id-u (i kroz keš profila), inače fastsearch
+        StudentDTO local = directory.findByIndeks(indeks);
+        Mono<StudentIndeksResponse> indeksMono = local != null
+                ? api.getStudentIndeks(local.getIdIndeks()).onErrorResume(e -> api.fastSearchByIndex(indeks))
+                : api.fastSearchByIndex(indeks);
+
+        // ako korisnik ode sa pretrage pre odgovora, zakasneli rezultat ga ne sme prebaciti na profil
+        ViewScope sc = nav.scope();
+        sc.track(indeksMono
                 .flatMap(indeksRes ->
                         api.getProfile(indeksRes.getId())
                                 .map(profile -> new Result(indeksRes, profile))
                 )
                 .subscribe(
-                        res -> Platform.runLater(() -> {
+                        res -> Platform.runLater(sc.guard(() -> {
                             progress.setVisible(false);
                             nav.navigate(Route.studentProfile(res.indeksRes, res.profile, StudentTab.LICNI));
-                        }),
-                        err -> Platform.runLater(() -> {
+                        })),
+                        err -> Platform.runLater(sc.guard(() -> {
                             progress.setVisible(false);
                             err.printStackTrace();
 
@@ -116,8 +132,8 @@ public class SearchStudentController {
                             }
 
                             lblMsg.setText(msg);
-                        })
-                );
+                        }))
+                ));
     }
 
     private static class Result {
@@ -3,6 +3,7 @@ package org.raflab.studsluzba.ui;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
@@ -14,12 +15,27 @@ import org.raflab.studsluzba.model.dtos.StudentProfileDTO;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
 import org.raflab.studsluzba.navigation.StudentTab;
+import org.raflab.studsluzba.navigation.ViewScope;
+import org.raflab.studsluzba.navigation.ViewSnapshot;
+import org.raflab.studsluzba.service.PageResponse;
+import org.raflab.studsluzba.service.PagedLoader;
+import org.raflab.studsluzba.service.PolozeniPagingDataSource;
+import org.raflab.studsluzba.service.ReportJob;
+import org.raflab.studsluzba.service.ReportJobService;
+import org.raflab.studsluzba.service.ReportOutput;
 import org.raflab.studsluzba.service.ReportService;
+import org.raflab.studsluzba.service.ScrollSource;
 import org.raflab.studsluzba.service.StudentApiService;
+import org.raflab.studsluzba.service.TabPreloader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -30,12 +46,32 @@ public class StudentProfileTabsController {
     private final StudentApiService api;
     private final NavigationService nav;
     private final ReportService reportService;
+    private final ReportJobService reportJobs;
+    private final UiDispatcher ui;
 
+    // dokumenti pokrenuti sa ovog ekrana (za prikaz stanja i otkazivanje)
+    private final List<ReportJob<?>> mojiDokumenti = new ArrayList<>();
 
-    public StudentProfileTabsController(StudentApiService api, NavigationService nav, ReportService reportService) {
+
+    public StudentProfileTabsController(StudentApiService api, NavigationService nav, ReportService reportService,
+                                        ReportJobService reportJobs, UiDispatcher ui,
+                                        @Value("${app.paging.infiniteScroll:false}") boolean infiniteScroll,
+                                        @Value("${app.paging.maxChunks:6}") int maxChunks,
+                                        @Value("${app.profile.eagerTabs:false}") boolean eagerTabs,
+                                        @Value("${app.profile.eagerConcurrency:3}") int eagerConcurrency) {
         this.api = api;
         this.nav = nav;
         this.reportService = reportService;
+        this.reportJobs = reportJobs;
+        this.ui = ui;
+        this.infiniteScroll = infiniteScroll;
+        this.maxChunks = maxChunks;
+        this.eagerTabs = eagerTabs;
+        this.eagerConcurrency = eagerConcurrency;
+
+        reportJobs.addListener(job -> {
+            if (mojiDokumenti.contains(job)) refreshDokumenti();
+        });
     }
 
 
@@ -45,6 +81,8 @@ public class StudentProfileTabsController {
     @FXML private Label lblProgram;
     @FXML private Label lblEspb;
     @FXML private Label lblProsek;
+    @FXML private Label lblDokumenti;
+    @FXML private Button btnOtkaziDokumente;
 
     // Tabs
     @FXML private Tab tabLicni;
@@ -124,44 +162,103 @@ public class StudentProfileTabsController {
     private int polPage = 0;
     private final int polSize = 50;
     private int polTotalPages = 1;
+    // posećene strane + prefetch susednih; veličina ostaje 50 jer se prosek računa po strani
+    private final PagedLoader<PolozenPredmetResponse> polPages = new PagedLoader<>(20, true);
+    // beskonačni skrol: prosek se računa nad redovima koji su trenutno u tabeli
+    private final boolean infiniteScroll;
+    private final int maxChunks;
+    private InfiniteScrollTable<PolozenPredmetResponse> polScroll;
+
+    // već učitani tabovi ovog studenta, čuvaju se uz history: back/forward ih prikazuje odmah pa osvežava
+    private static final String SNAP_LICNI = "licni";
+    private static final String SNAP_POLOZENI = "polozeni";
+    private static final String SNAP_UPLATE = "uplate";
+    private static final String SNAP_UPISI = "upisi";
+    private static final String SNAP_OBNOVE = "obnove";
+    private ViewSnapshot snap;
+    // zahtevi za prikazanog studenta; NavigationService ih otkazuje kad se ode na drugi ekran
+    private ViewScope scope;
+
+    // podaci tabova prikazanog studenta u memoriji; u eager modu svi kreću odmah pri otvaranju profila
+    private final TabPreloader preload = new TabPreloader();
+    private final boolean eagerTabs;
+    private final int eagerConcurrency;
+    // koliko često se sa taba prelazi na koji tab (ove sesije) - za redosled eager učitavanja
+    private final int[][] tabTransitions = new int[StudentTab.values().length][StudentTab.values().length];
+    private StudentTab lastTab;
+    private Disposable uplateRows;
 
     private final DateTimeFormatter df = DateTimeFormatter.ofPattern("dd.MM.yyyy");
     @FXML
     public void onPotvrdaStudiranja() {
-        try {
-            var pdf = reportService.generatePotvrdaStudiranja(indeksRes, profile);
-            openFile(pdf);
-        } catch (Exception e) {
-            showError("Ne mogu da generišem potvrdu: " + e.getMessage());
-        }
+        final StudentIndeksResponse i = indeksRes;
+        final StudentProfileDTO p = profile;
+
+        submitDokument("Potvrda o studiranju", "potvrda_studiranja", ReportJobService.Priority.HIGH, job -> {
+            job.progress(0.3, "Generisanje potvrde");
+            return reportService.generatePotvrdaStudiranja(i, p, ReportOutput.toBuffer()).getBytes();
+        }, "Ne mogu da generišem potvrdu: ");
     }
 
     @FXML
     public void onUverenjePolozeni() {
-        Long indeksId = indeksRes != null ? indeksRes.getId() : null;
+        final StudentIndeksResponse i = indeksRes;
+        final StudentProfileDTO p = profile;
+        Long indeksId = i != null ? i.getId() : null;
         if (indeksId == null) { showError("Nema indeksId."); return; }
 
-        api.getPolozeni(indeksId, 0, 1000).subscribe(
-                page -> Platform.runLater(() -> {
-                    try {
-                        var pdf = reportService.generateUverenjePolozeni(indeksRes, profile, page.getContent());
-                        openFile(pdf);
-                    } catch (Exception e) {
-                        showError("Ne mogu da generišem uverenje: " + e.getMessage());
-                    }
-                }),
-                err -> Platform.runLater(() -> showError("Ne mogu da učitam položene: " + err.getMessage()))
-        );
+        submitDokument("Uverenje o položenim", "uverenje_polozeni", ReportJobService.Priority.NORMAL, job -> {
+            // sve strane položenih, sledeća se povlači dok se trenutna puni
+            PolozeniPagingDataSource ds = new PolozeniPagingDataSource(api, indeksId);
+            try {
+                job.progress(0.1, "Učitavanje položenih");
+                ds.getTotalElements();
+
+                job.progress(0.4, "Generisanje uverenja");
+                return reportService.generateUverenjePolozeni(i, p, ds, ReportOutput.toBuffer()).getBytes();
+            } finally {
+                ds.close();
+            }
+        }, "Ne mogu da generišem uverenje: ");
+    }
+
+    @FXML
+    public void onOtkaziDokumente() {
+        for (ReportJob<?> job : new ArrayList<>(mojiDokumenti)) job.cancel();
     }
-    private void openFile(java.nio.file.Path path) {
+
+    private void submitDokument(String naziv, String filePrefix, ReportJobService.Priority priority,
+                                ReportJobService.Task<byte[]> task, String errPrefix) {
+        String imePrezime = lblHeader.getText() == null ? "" : lblHeader.getText().replace("Profil: ", "");
+        ReportJob<byte[]> job = reportJobs.submit(naziv + " – " + imePrezime, priority, task,
+                pdf -> openPreview(naziv + " – " + imePrezime, filePrefix, pdf),
+                err -> showError(errPrefix + err.getMessage()));
+        mojiDokumenti.add(job);
+        refreshDokumenti();
+    }
+
+    private void refreshDokumenti() {
+        mojiDokumenti.removeIf(j -> !j.isActive());
+        if (lblDokumenti == null) return;
+
+        if (mojiDokumenti.isEmpty()) {
+            lblDokumenti.setText("");
+        } else {
+            ReportJob<?> first = mojiDokumenti.get(0);
+            String txt = first.getName() + ": " + first.getMessage() + " (" + Math.round(first.getProgress() * 100) + "%)";
+            if (mojiDokumenti.size() > 1) txt += "  + još " + (mojiDokumenti.size() - 1) + " u redu";
+            lblDokumenti.setText(txt);
+        }
+        btnOtkaziDokumente.setVisible(!mojiDokumenti.isEmpty());
+        btnOtkaziDokumente.setManaged(!mojiDokumenti.isEmpty());
+    }
+
+    private void openPreview(String title, String filePrefix, byte[] pdf) {
         try {
-            if (java.awt.Desktop.isDesktopSupported()) {
-                java.awt.Desktop.getDesktop().open(path.toFile());
-            } else {
-                showInfo("PDF je sačuvan na:\n" + path);
-            }
+            var owner = lblHeader.getScene() != null ? lblHeader.getScene().getWindow() : null;
+            ReportPreviewWindow.show(owner, title, filePrefix, pdf, reportService.getOutputDir());
         } catch (Exception e) {
-            showInfo("PDF je sačuvan na:\n" + path);
+            showError("Ne mogu da prikažem PDF: " + e.getMessage());
         }
     }
 
@@ -194,20 +291,30 @@ public class StudentProfileTabsController {
         tblUplate.setDisable(true);
         btnNovaUplata.setDisable(true);
 
+        final ViewSnapshot s = snap;
+        final ViewScope sc = scope;
+        // upis se ne otkazuje napuštanjem ekrana, pa ni potvrda ne sme da se izgubi (owner null);
+        // tabela se osvežava samo ako je profil istog studenta i dalje otvoren
         api.addUplata(indeksId, iznos)
                 .then(api.getUplate(indeksId)) // odmah posle unosa povuci sve uplate ponovo
                 .subscribe(
-                        list -> Platform.runLater(() -> {
-                            tblUplate.getItems().setAll(list == null ? List.of() : list);
-                            piUplate.setVisible(false);
-                            tblUplate.setDisable(false);
-                            btnNovaUplata.setDisable(false);
+                        list -> ui.run(null, () -> {
+                            if (sc.isActive()) {
+                                tblUplate.getItems().setAll(list == null ? List.of() : list);
+                                preload.put(SNAP_UPLATE, new ArrayList<>(tblUplate.getItems()));
+                                if (s != null) s.put(SNAP_UPLATE, new ArrayList<>(tblUplate.getItems()));
+                                piUplate.setVisible(false);
+                                tblUplate.setDisable(false);
+                                btnNovaUplata.setDisable(false);
+                            }
                             showInfo("Uplata je uspešno sačuvana.");
                         }),
-                        err -> Platform.runLater(() -> {
-                            piUplate.setVisible(false);
-                            tblUplate.setDisable(false);
-                            btnNovaUplata.setDisable(false);
+                        err -> ui.run(null, () -> {
+                            if (sc.isActive()) {
+                                piUplate.setVisible(false);
+                                tblUplate.setDisable(false);
+                                btnNovaUplata.setDisable(false);
+                            }
                             showError("Greška pri unosu uplate: " + err.getMessage());
                         })
                 );
@@ -235,6 +342,12 @@ public class StudentProfileTabsController {
         tab.setOnSelectionChanged(e -> {
             if (!tab.isSelected()) return;
 
+            // prelaz koji je izabrao korisnik (ne back/forward) ulazi u rang za eager učitavanje
+            if (!ignoreHistory && lastTab != null && lastTab != studentTab) {
+                tabTransitions[lastTab.ordinal()][studentTab.ordinal()]++;
+            }
+            lastTab = studentTab;
+
             // load sadržaja (ne zavisi od history)
             if (tab == tabLicni && !licniLoaded) loadLicniPodaci();
             else if (tab == tabNepolozeni && !nepolozeniLoaded) loadNepolozeni();
@@ -257,8 +370,9 @@ public class StudentProfileTabsController {
         btnUpisiGodinu.setDisable(true);
         btnObnoviGodinu.setDisable(true);
 
+        final ViewScope sc = scope;
         api.getSkolskeGodine().subscribe(
-                godine -> Platform.runLater(() -> {
+                godine -> ui.run(tblUpisi, sc.guard(() -> {
                     piTok.setVisible(false);
                     btnUpisiGodinu.setDisable(false);
                     btnObnoviGodinu.setDisable(false);
@@ -270,24 +384,31 @@ public class StudentProfileTabsController {
                     btnUpisiGodinu.setDisable(true);
                     btnObnoviGodinu.setDisable(true);
 
+                    // tok studija se ponovo učitava na FX niti, i samo ako je profil i dalje otvoren
                     api.addUpisGodine(req)
-                            .then(Mono.fromRunnable(this::loadTokStudija))
                             .subscribe(
                                     ok -> {},
-                                    err -> Platform.runLater(() -> {
-                                        piTok.setVisible(false);
+                                    err -> ui.run(null, () -> {
+                                        if (sc.isActive()) {
+                                            piTok.setVisible(false);
+                                            btnUpisiGodinu.setDisable(false);
+                                            btnObnoviGodinu.setDisable(false);
+                                        }
+                                        showError("Greška pri upisu godine: " + err.getMessage());
+                                    }),
+                                    () -> ui.run(tblUpisi, sc.guard(() -> {
                                         btnUpisiGodinu.setDisable(false);
                                         btnObnoviGodinu.setDisable(false);
-                                        showError("Greška pri upisu godine: " + err.getMessage());
-                                    })
+                                        loadTokStudija();
+                                    }))
                             );
-                }),
-                err -> Platform.runLater(() -> {
+                })),
+                err -> ui.run(tblUpisi, sc.guard(() -> {
                     piTok.setVisible(false);
                     btnUpisiGodinu.setDisable(false);
                     btnObnoviGodinu.setDisable(false);
                     showError("Ne mogu da učitam školske godine: " + err.getMessage());
-                })
+                }))
         );
     }
     @FXML
@@ -301,8 +422,9 @@ public class StudentProfileTabsController {
         btnUpisiGodinu.setDisable(true);
         btnObnoviGodinu.setDisable(true);
 
+        final ViewScope sc = scope;
         api.getSkolskeGodine().subscribe(
-                godine -> Platform.runLater(() -> {
+                godine -> ui.run(tblUpisi, sc.guard(() -> {
                     piTok.setVisible(false);
                     btnUpisiGodinu.setDisable(false);
                     btnObnoviGodinu.setDisable(false);
@@ -314,24 +436,31 @@ public class StudentProfileTabsController {
                     btnUpisiGodinu.setDisable(true);
                     btnObnoviGodinu.setDisable(true);
 
+                    // tok studija se ponovo učitava na FX niti, i samo ako je profil i dalje otvoren
                     api.addObnovaGodine(req)
-                            .then(Mono.fromRunnable(this::loadTokStudija))
                             .subscribe(
                                     ok -> {},
-                                    err -> Platform.runLater(() -> {
-                                        piTok.setVisible(false);
+                                    err -> ui.run(null, () -> {
+                                        if (sc.isActive()) {
+                                            piTok.setVisible(false);
+                                            btnUpisiGodinu.setDisable(false);
+                                            btnObnoviGodinu.setDisable(false);
+                                        }
+                                        showError("Greška pri obnovi godine: " + err.getMessage());
+                                    }),
+                                    () -> ui.run(tblUpisi, sc.guard(() -> {
                                         btnUpisiGodinu.setDisable(false);
                                         btnObnoviGodinu.setDisable(false);
-                                        showError("Greška pri obnovi godine: " + err.getMessage());
-                                    })
+                                        loadTokStudija();
+                                    }))
                             );
-                }),
-                err -> Platform.runLater(() -> {
+                })),
+                err -> ui.run(tblUpisi, sc.guard(() -> {
                     piTok.setVisible(false);
                     btnUpisiGodinu.setDisable(false);
                     btnObnoviGodinu.setDisable(false);
                     showError("Ne mogu da učitam školske godine: " + err.getMessage());
-                })
+                }))
         );
     }
     private UpisGodineRequest showUpisDialog(List<SkolskaGodinaResponse> godine) {
@@ -412,6 +541,7 @@ public class StudentProfileTabsController {
         lvPredmeti.getSelectionModel().getSelectedItems().addListener((javafx.collections.ListChangeListener<? super DrziPredmetResponse>) c -> recompute.run());
 
         // kad se promeni šk. godina ili godina studija -> povuci drziPredmet i filtriraj po semestru
+        Disposable[] predmetiStream = {null};
         Runnable reloadPredmeti = () -> {
             SkolskaGodinaResponse sk = cmbGodina.getValue();
             if (sk == null || sk.getId() == null) {
@@ -422,19 +552,23 @@ public class StudentProfileTabsController {
             String program = indeksRes.getStudProgramOznaka();
             int godinaStud = spGodStud.getValue();
 
+            // predmeti stižu u paketima; prethodno učitavanje (druga godina/šk. godina) se prekida
+            if (predmetiStream[0] != null) predmetiStream[0].dispose();
+            lvPredmeti.getSelectionModel().clearSelection();
+            lvPredmeti.getItems().clear();
+            recompute.run();
+
             pi.setVisible(true);
-            api.getDrziPredmet(sk.getId(), program).subscribe(
-                    list -> Platform.runLater(() -> {
+            predmetiStream[0] = RowStreamer.appendTo(ui, lvPredmeti, lvPredmeti.getItems(),
+                    api.streamDrziPredmet(sk.getId(), program).filter(dp -> uGodiniStudija(dp, godinaStud)),
+                    n -> {
                         pi.setVisible(false);
-                        lvPredmeti.getItems().setAll(filterByGodinaStudija(list, godinaStud));
-                        lvPredmeti.getSelectionModel().clearSelection();
                         recompute.run();
-                    }),
-                    err -> Platform.runLater(() -> {
+                    },
+                    err -> {
                         pi.setVisible(false);
                         showError("Ne mogu da učitam predmete: " + err.getMessage());
-                    })
-            );
+                    });
         };
 
         cmbGodina.valueProperty().addListener((obs, o, n) -> reloadPredmeti.run());
@@ -546,6 +680,7 @@ public class StudentProfileTabsController {
         };
         lvPredmeti.getSelectionModel().getSelectedItems().addListener((javafx.collections.ListChangeListener<? super DrziPredmetResponse>) c -> recompute.run());
 
+        Disposable[] predmetiStream = {null};
         Runnable reloadPredmeti = () -> {
             SkolskaGodinaResponse sk = cmbGodina.getValue();
             if (sk == null || sk.getId() == null) {
@@ -556,19 +691,23 @@ public class StudentProfileTabsController {
             String program = indeksRes.getStudProgramOznaka();
             int godinaStud = spGodStud.getValue();
 
+            // predmeti stižu u paketima; prethodno učitavanje (druga godina/šk. godina) se prekida
+            if (predmetiStream[0] != null) predmetiStream[0].dispose();
+            lvPredmeti.getSelectionModel().clearSelection();
+            lvPredmeti.getItems().clear();
+            recompute.run();
+
             pi.setVisible(true);
-            api.getDrziPredmet(sk.getId(), program).subscribe(
-                    list -> Platform.runLater(() -> {
+            predmetiStream[0] = RowStreamer.appendTo(ui, lvPredmeti, lvPredmeti.getItems(),
+                    api.streamDrziPredmet(sk.getId(), program).filter(dp -> uGodiniStudija(dp, godinaStud)),
+                    n -> {
                         pi.setVisible(false);
-                        lvPredmeti.getItems().setAll(filterByGodinaStudija(list, godinaStud));
-                        lvPredmeti.getSelectionModel().clearSelection();
                         recompute.run();
-                    }),
-                    err -> Platform.runLater(() -> {
+                    },
+                    err -> {
                         pi.setVisible(false);
                         showError("Ne mogu da učitam predmete: " + err.getMessage());
-                    })
-            );
+                    });
         };
 
         cmbGodina.valueProperty().addListener((obs, o, n) -> reloadPredmeti.run());
@@ -613,18 +752,12 @@ public class StudentProfileTabsController {
 
         return dialog.showAndWait().orElse(null);
     }
-    private static List<DrziPredmetResponse> filterByGodinaStudija(List<DrziPredmetResponse> list, int godinaStudija) {
-        if (list == null) return List.of();
+    private static boolean uGodiniStudija(DrziPredmetResponse dp, int godinaStudija) {
         int minSem = (godinaStudija - 1) * 2 + 1;
         int maxSem = godinaStudija * 2;
-
-
-        return list.stream()
-                .filter(dp -> dp.getSemestar() != null
-                        && dp.getSemestar() >= minSem
-                        && dp.getSemestar() <= maxSem)
-                .collect(Collectors.toList());
-
+        return dp.getSemestar() != null
+                && dp.getSemestar() >= minSem
+                && dp.getSemestar() <= maxSem;
     }
 
 
@@ -650,6 +783,16 @@ public class StudentProfileTabsController {
         polozeniLoaded = false;
         uplateLoaded = false;
         tokLoaded = false;
+        clearTabs();
+        snap = nav.currentSnapshot();
+
+        // isti scope = promenio se samo tab istog studenta; strane i podaci tabova ostaju u memoriji
+        final boolean sameScreen = nav.scope() == scope;
+        scope = nav.scope();
+        if (!sameScreen) {
+            polPages.clear();
+            preload.clear();
+        }
 
         // ===== header =====
         String ime = indeksRes != null ? indeksRes.getImeStudenta() : null;
@@ -680,8 +823,86 @@ public class StudentProfileTabsController {
 
         lblProsek.setText("—");
 
-        // ako je već neki tab selektovan (npr. back/forward) - učitaj ga
-        Platform.runLater(this::ensureSelectedTabLoaded);
+        // ako je već neki tab selektovan (npr. back/forward) - učitaj ga; selectTab je tada već pozvan
+        Platform.runLater(() -> {
+            if (eagerTabs && !sameScreen) preloadTabs();
+            ensureSelectedTabLoaded();
+        });
+    }
+
+    /**
+     * Eager mod: zahtevi za sve tabove odjednom (najviše eagerConcurrency istovremeno) - prvo tab koji
+     * se otvara, pa ostali po tome koliko često se sa njega prelazi na njih. Tab posle čita iz memorije.
+     */
+    private void preloadTabs() {
+        Long indeksId = indeksRes != null ? indeksRes.getId() : null;
+        Long studentPodaciId = indeksRes != null ? indeksRes.getStudentId() : null;
+        if (indeksId == null) return;
+
+        LinkedHashMap<String, Mono<?>> ranked = new LinkedHashMap<>();
+        for (StudentTab t : rankTabs(selectedTab())) {
+            switch (t) {
+                case LICNI:
+                    if (studentPodaciId != null) ranked.put(SNAP_LICNI, api.getStudentPodaci(studentPodaciId));
+                    break;
+                case POLOZENI:
+                    // prva strana ide u polPages, odakle je tab prikazuje bez zahteva
+                    ranked.put(SNAP_POLOZENI, polPages.page("polozeni|" + indeksId, 0, polSize,
+                            (p, sz) -> api.getPolozeni(indeksId, p, sz)));
+                    break;
+                case UPLATE:
+                    ranked.put(SNAP_UPLATE, api.getUplate(indeksId));
+                    break;
+                case TOK:
+                    ranked.put(SNAP_UPISI, api.getUpisi(indeksId));
+                    ranked.put(SNAP_OBNOVE, api.getObnove(indeksId));
+                    break;
+                default:
+                    break; // nepoloženi su već u profilu
+            }
+        }
+        scope.track(preload.start(ranked, eagerConcurrency));
+    }
+
+    private List<StudentTab> rankTabs(StudentTab from) {
+        // bez istorije prelaza: uobičajen redosled (lični, položeni, uplate, tok)
+        List<StudentTab> order = new ArrayList<>(List.of(StudentTab.LICNI, StudentTab.POLOZENI, StudentTab.UPLATE, StudentTab.TOK));
+        order.remove(from);
+        int[] row = tabTransitions[from.ordinal()];
+        order.sort(Comparator.comparingInt(t -> -row[t.ordinal()]));
+        order.add(0, from);
+        return order;
+    }
+
+    private StudentTab selectedTab() {
+        TabPane pane = tabLicni.getTabPane();
+        Tab selected = pane != null ? pane.getSelectionModel().getSelectedItem() : null;
+        if (selected == tabNepolozeni) return StudentTab.NEPOLOZENI;
+        if (selected == tabPolozeni) return StudentTab.POLOZENI;
+        if (selected == tabUplate) return StudentTab.UPLATE;
+        if (selected == tabTok) return StudentTab.TOK;
+        return StudentTab.LICNI;
+    }
+
+    /** Ekran se čuva između navigacija - podaci prethodnog studenta ne smeju da ostanu u tabovima. */
+    private void clearTabs() {
+        for (Label l : List.of(lblIme, lblPrezime, lblEmail, lblJmbg, lblDatumRodjenja, lblAdresa, lblTelefon)) {
+            l.setText("");
+        }
+        tblNepolozeni.getItems().clear();
+        tblPolozeni.getItems().clear();
+        tblUplate.getItems().clear();
+        tblUpisi.getItems().clear();
+        tblObnove.getItems().clear();
+        lblPolPage.setText("");
+
+        // učitavanje prekinuto odlaskom sa ekrana je možda ostavilo indikatore uključene
+        for (ProgressIndicator pi : List.of(piLicni, piNepolozeni, piPolozeni, piUplate, piTok)) {
+            pi.setVisible(false);
+        }
+        for (Node n : List.of(boxLicni, tblNepolozeni, tblPolozeni, tblUplate, tblUpisi, tblObnove)) {
+            n.setDisable(false);
+        }
     }
 
     public void selectTab(StudentTab tab) {
@@ -754,6 +975,20 @@ public class StudentProfileTabsController {
         colPolDatum.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().getDatumPolaganja() == null ? "" : df.format(c.getValue().getDatumPolaganja())));
         colPolPriznat.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().isPriznat() ? "DA" : "NE"));
 
+        if (infiniteScroll) {
+            polScroll = InfiniteScrollTable.install(ui, tblPolozeni, polSize, maxChunks);
+            polScroll.setOnChanged(() -> {
+                lblPolPage.setText(polScroll.status());
+                piPolozeni.setVisible(false);
+                tblPolozeni.setDisable(false);
+                computeAndShowProsek(new ArrayList<>(tblPolozeni.getItems()));
+            });
+            btnPrevPol.setVisible(false);
+            btnPrevPol.setManaged(false);
+            btnNextPol.setVisible(false);
+            btnNextPol.setManaged(false);
+        }
+
         btnPrevPol.setOnAction(e -> {
             if (polPage > 0) loadPolozeni(polPage - 1);
         });
@@ -785,8 +1020,16 @@ public class StudentProfileTabsController {
 
     private void loadLicniPodaci() {
         licniLoaded = true;
-        piLicni.setVisible(true);
-        boxLicni.setDisable(true);
+        final ViewSnapshot s = snap;
+        final ViewScope sc = scope;
+        final StudentPodaciResponse saved = s != null ? s.get(SNAP_LICNI) : null;
+        if (saved != null) {
+            // iz history-ja odmah, sveži podaci stižu preko njih
+            fillLicni(saved);
+        } else {
+            piLicni.setVisible(true);
+            boxLicni.setDisable(true);
+        }
 
         // BITNO: endpoint /api/student/podaci/{id} očekuje StudentPodaci ID
         Long studentPodaciId = (indeksRes != null) ? indeksRes.getStudentId() : null;
@@ -798,19 +1041,21 @@ public class StudentProfileTabsController {
             return;
         }
 
-        api.getStudentPodaci(studentPodaciId)
+        sc.track(preload.source(SNAP_LICNI, () -> api.getStudentPodaci(studentPodaciId))
                 .subscribe(
-                        data -> Platform.runLater(() -> {
+                        data -> ui.set(boxLicni, sc.guard(() -> {
                             fillLicni(data);
                             piLicni.setVisible(false);
                             boxLicni.setDisable(false);
-                        }),
-                        err -> Platform.runLater(() -> {
+                            if (s != null) s.put(SNAP_LICNI, data);
+                        })),
+                        err -> ui.run(boxLicni, sc.guard(() -> {
                             piLicni.setVisible(false);
                             boxLicni.setDisable(false);
-                            showError("Greška pri učitavanju ličnih podataka: " + err.getMessage());
-                        })
-                );
+                            if (saved != null) System.out.println(">>> osvežavanje ličnih podataka nije uspelo: " + err.getMessage());
+                            else showError("Greška pri učitavanju ličnih podataka: " + err.getMessage());
+                        }))
+                ));
     }
 
     private void fillLicni(StudentPodaciResponse d) {
@@ -836,48 +1081,95 @@ public class StudentProfileTabsController {
         tblNepolozeni.setDisable(true);
 
         List<SlusaPredmet> list = profile != null ? profile.getNepolozeniPredmeti() : null;
-        Platform.runLater(() -> {
+        ui.set(tblNepolozeni, scope.guard(() -> {
             tblNepolozeni.getItems().setAll(list == null ? List.of() : list);
             piNepolozeni.setVisible(false);
             tblNepolozeni.setDisable(false);
-        });
+        }));
     }
 
     private void loadPolozeni(int page) {
+        final ViewSnapshot s = snap;
+        final ViewScope sc = scope;
+        // prvo otvaranje taba posle back/forward: strana na kojoj je korisnik bio
+        final PageResponse<PolozenPredmetResponse> saved = !polozeniLoaded && s != null ? s.get(SNAP_POLOZENI) : null;
         polozeniLoaded = true;
-        piPolozeni.setVisible(true);
-        tblPolozeni.setDisable(true);
-        btnPrevPol.setDisable(true);
-        btnNextPol.setDisable(true);
 
         Long indeksId = indeksRes != null ? indeksRes.getId() : null;
         if (indeksId == null) {
             showError("Ne mogu da učitam položene: indeksId nedostaje.");
-            piPolozeni.setVisible(false);
-            tblPolozeni.setDisable(false);
             return;
         }
 
-        api.getPolozeni(indeksId, page, polSize)
-                .subscribe(
-                        resp -> Platform.runLater(() -> {
-                            polPage = resp.getNumber();
-                            polTotalPages = Math.max(1, resp.getTotalPages());
-                            tblPolozeni.getItems().setAll(resp.getContent() == null ? List.of() : resp.getContent());
-                            lblPolPage.setText((polPage + 1) + " / " + polTotalPages);
-                            btnPrevPol.setDisable(polPage <= 0);
-                            btnNextPol.setDisable(polPage + 1 >= polTotalPages);
-                            piPolozeni.setVisible(false);
-                            tblPolozeni.setDisable(false);
-
-                            computeAndShowProsek(resp.getContent());
-                        }),
-                        err -> Platform.runLater(() -> {
-                            piPolozeni.setVisible(false);
-                            tblPolozeni.setDisable(false);
-                            showError("Greška pri učitavanju položenih: " + err.getMessage());
-                        })
-                );
+        String key = "polozeni|" + indeksId;
+        if (polScroll != null) {
+            ScrollSource<PolozenPredmetResponse> source = ScrollSource.fromPages((p, sz) -> polPages
+                    .page(key, p, sz, (pp, ss) -> api.getPolozeni(indeksId, pp, ss))
+                    .doOnNext(resp -> {
+                        if (p == 0 && s != null) ui.run(tblPolozeni, sc.guard(() -> s.put(SNAP_POLOZENI, resp)));
+                    }));
+
+            if (saved == null || saved.getNumber() != 0) {
+                piPolozeni.setVisible(true);
+                polScroll.start(source, null, sc);
+                return;
+            }
+
+            // prvi komad iz history-ja; sveži ga zamenjuje ako korisnik u međuvremenu nije skrolovao dalje
+            int savedRows = saved.getContent() == null ? 0 : saved.getContent().size();
+            polScroll.start(source, ScrollSource.Chunk.ofPage(saved), sc);
+            sc.track(source.load(null, polScroll.getChunkSize()).subscribe(
+                    fresh -> ui.run(tblPolozeni, sc.guard(() -> {
+                        if (tblPolozeni.getItems().size() <= savedRows) polScroll.start(source, fresh, sc);
+                    })),
+                    err -> System.out.println(">>> osvežavanje položenih nije uspelo: " + err.getMessage())));
+            return;
+        }
+
+        if (saved != null) page = saved.getNumber();
+        Mono<PageResponse<PolozenPredmetResponse>> m = polPages.page(key, page, polSize, (p, sz) -> api.getPolozeni(indeksId, p, sz));
+
+        // strana iz memorije se prikazuje odmah (page() i dalje pokreće prefetch susednih)
+        PageResponse<PolozenPredmetResponse> cached = polPages.peek(key, page, polSize);
+        if (cached != null) {
+            applyPolozeniPage(cached, s);
+            sc.track(m.subscribe(ok -> { }, err -> { }));
+            return;
+        }
+
+        if (saved != null) {
+            // strana iz history-ja odmah, sveža preko nje kad stigne
+            applyPolozeniPage(saved, null);
+        } else {
+            piPolozeni.setVisible(true);
+            tblPolozeni.setDisable(true);
+            btnPrevPol.setDisable(true);
+            btnNextPol.setDisable(true);
+        }
+
+        sc.track(m.subscribe(
+                resp -> ui.set(tblPolozeni, sc.guard(() -> applyPolozeniPage(resp, s))),
+                err -> ui.run(tblPolozeni, sc.guard(() -> {
+                    piPolozeni.setVisible(false);
+                    tblPolozeni.setDisable(false);
+                    if (saved != null) System.out.println(">>> osvežavanje položenih nije uspelo: " + err.getMessage());
+                    else showError("Greška pri učitavanju položenih: " + err.getMessage());
+                }))
+        ));
+    }
+
+    private void applyPolozeniPage(PageResponse<PolozenPredmetResponse> resp, ViewSnapshot s) {
+        polPage = resp.getNumber();
+        polTotalPages = Math.max(1, resp.getTotalPages());
+        tblPolozeni.getItems().setAll(resp.getContent() == null ? List.of() : resp.getContent());
+        lblPolPage.setText((polPage + 1) + " / " + polTotalPages);
+        btnPrevPol.setDisable(polPage <= 0);
+        btnNextPol.setDisable(polPage + 1 >= polTotalPages);
+        piPolozeni.setVisible(false);
+        tblPolozeni.setDisable(false);
+
+        computeAndShowProsek(resp.getContent());
+        if (s != null) s.put(SNAP_POLOZENI, resp);
     }
 
     private void computeAndShowProsek(List<PolozenPredmetResponse> polozeni) {
@@ -906,7 +1198,10 @@ public class StudentProfileTabsController {
 
     private void loadUplate() {
         uplateLoaded = true;
-        piUplate.setVisible(true);
+        final ViewSnapshot s = snap;
+        final ViewScope sc = scope;
+        final List<UplataResponse> saved = s != null ? s.get(SNAP_UPLATE) : null;
+        piUplate.setVisible(saved == null);
         tblUplate.setDisable(true);
 
         Long indeksId = indeksRes != null ? indeksRes.getId() : null;
@@ -917,26 +1212,58 @@ public class StudentProfileTabsController {
             return;
         }
 
-        api.getUplate(indeksId)
-                .subscribe(
-                        list -> Platform.runLater(() -> {
-                            tblUplate.getItems().setAll(list == null ? List.of() : list);
-                            piUplate.setVisible(false);
-                            tblUplate.setDisable(false);
-                        }),
-                        err -> Platform.runLater(() -> {
-                            piUplate.setVisible(false);
-                            tblUplate.setDisable(false);
-                            showError("Greška pri učitavanju uplata: " + err.getMessage());
-                        })
-                );
+        tblUplate.setDisable(false);
+        if (uplateRows != null) uplateRows.dispose();
+        if (saved != null || preload.has(SNAP_UPLATE)) {
+            // uplate iz history-ja odmah; lista iz memorije (ili zahteva u toku) ih zamenjuje
+            if (saved != null) tblUplate.getItems().setAll(saved);
+            uplateRows = sc.track(preload.source(SNAP_UPLATE, () -> api.getUplate(indeksId)).subscribe(
+                    list -> ui.set(tblUplate, sc.guard(() -> {
+                        tblUplate.getItems().setAll(list == null ? List.of() : list);
+                        piUplate.setVisible(false);
+                        if (s != null) s.put(SNAP_UPLATE, new ArrayList<>(tblUplate.getItems()));
+                    })),
+                    err -> ui.run(tblUplate, sc.guard(() -> {
+                        piUplate.setVisible(false);
+                        if (saved != null) System.out.println(">>> osvežavanje uplata nije uspelo: " + err.getMessage());
+                        else showError("Greška pri učitavanju uplata: " + err.getMessage());
+                    }))));
+            return;
+        }
+
+        // tabela ostaje aktivna i puni se kako uplate stižu
+        tblUplate.getItems().clear();
+        uplateRows = sc.track(RowStreamer.appendTo(ui, tblUplate, tblUplate.getItems(), api.streamUplate(indeksId),
+                n -> {
+                    piUplate.setVisible(false);
+                    preload.put(SNAP_UPLATE, new ArrayList<>(tblUplate.getItems()));
+                    if (s != null) s.put(SNAP_UPLATE, new ArrayList<>(tblUplate.getItems()));
+                },
+                err -> {
+                    piUplate.setVisible(false);
+                    showError("Greška pri učitavanju uplata: " + err.getMessage());
+                }));
     }
 
     private void loadTokStudija() {
+        final ViewSnapshot s = snap;
+        final ViewScope sc = scope;
+        // iz history-ja samo pri prvom otvaranju taba; posle upisa/obnove se uvek čeka server
+        final List<UpisGodineResponse> savedUpisi = !tokLoaded && s != null ? s.get(SNAP_UPISI) : null;
+        final List<ObnovaGodineResponse> savedObnove = !tokLoaded && s != null ? s.get(SNAP_OBNOVE) : null;
+        final boolean restored = savedUpisi != null && savedObnove != null;
+        // posle upisa/obnove (tab već učitan) memorija je zastarela - ide se na server
+        final boolean fromMemory = !tokLoaded;
         tokLoaded = true;
-        piTok.setVisible(true);
-        tblUpisi.setDisable(true);
-        tblObnove.setDisable(true);
+
+        if (restored) {
+            tblUpisi.getItems().setAll(savedUpisi);
+            tblObnove.getItems().setAll(savedObnove);
+        } else {
+            piTok.setVisible(true);
+            tblUpisi.setDisable(true);
+            tblObnove.setDisable(true);
+        }
 
         Long indeksId = indeksRes != null ? indeksRes.getId() : null;
         if (indeksId == null) {
@@ -947,25 +1274,32 @@ public class StudentProfileTabsController {
             return;
         }
 
-        Mono<List<UpisGodineResponse>> upisiM = api.getUpisi(indeksId);
-        Mono<List<ObnovaGodineResponse>> obnoveM = api.getObnove(indeksId);
+        Mono<List<UpisGodineResponse>> upisiM = fromMemory ? preload.source(SNAP_UPISI, () -> api.getUpisi(indeksId)) : api.getUpisi(indeksId);
+        Mono<List<ObnovaGodineResponse>> obnoveM = fromMemory ? preload.source(SNAP_OBNOVE, () -> api.getObnove(indeksId)) : api.getObnove(indeksId);
 
-        Mono.zip(upisiM, obnoveM)
+        sc.track(Mono.zip(upisiM, obnoveM)
                 .subscribe(
-                        tup -> Platform.runLater(() -> {
+                        tup -> ui.set(tblUpisi, sc.guard(() -> {
                             tblUpisi.getItems().setAll(tup.getT1() == null ? List.of() : tup.getT1());
                             tblObnove.getItems().setAll(tup.getT2() == null ? List.of() : tup.getT2());
                             piTok.setVisible(false);
                             tblUpisi.setDisable(false);
                             tblObnove.setDisable(false);
-                        }),
-                        err -> Platform.runLater(() -> {
+                            preload.put(SNAP_UPISI, tup.getT1());
+                            preload.put(SNAP_OBNOVE, tup.getT2());
+                            if (s != null) {
+                                s.put(SNAP_UPISI, new ArrayList<>(tblUpisi.getItems()));
+                                s.put(SNAP_OBNOVE, new ArrayList<>(tblObnove.getItems()));
+                            }
+                        })),
+                        err -> ui.run(tblUpisi, sc.guard(() -> {
                             piTok.setVisible(false);
                             tblUpisi.setDisable(false);
                             tblObnove.setDisable(false);
-                            showError("Greška pri učitavanju toka studija: " + err.getMessage());
-                        })
-                );
+                            if (restored) System.out.println(">>> osvežavanje toka studija nije uspelo: " + err.getMessage());
+                            else showError("Greška pri učitavanju toka studija: " + err.getMessage());
+                        }))
+                ));
     }
 
     private void showError(String msg) {
@@ -0,0 +1,67 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.animation.PauseTransition;
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+import org.raflab.studsluzba.model.dtos.StudentDTO;
+import org.raflab.studsluzba.service.ProfilePrefetcher;
+
+/**
+ * Prefetch profila iz tabele studenata: selektovan red, red pod mišem (posle kratke pauze)
+ * i jedini rezultat pretrage. Kad selekcija/miš ode sa reda, njegov prefetch se otkazuje.
+ */
+final class StudentRowPrefetch {
+
+    private static final Duration HOVER_DELAY = Duration.millis(150);
+
+    private final ProfilePrefetcher prefetcher;
+
+    private ProfilePrefetcher.Handle selected;
+    private ProfilePrefetcher.Handle hovered;
+    private final PauseTransition hoverDelay = new PauseTransition(HOVER_DELAY);
+
+    private StudentRowPrefetch(ProfilePrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    static StudentRowPrefetch install(TableView<StudentDTO> tbl, ProfilePrefetcher prefetcher) {
+        StudentRowPrefetch p = new StudentRowPrefetch(prefetcher);
+
+        tbl.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
+            prefetcher.cancel(p.selected);
+            p.selected = prefetcher.prefetch(indeksId(sel));
+        });
+
+        tbl.getItems().addListener((ListChangeListener<StudentDTO>) c -> {
+            if (tbl.getItems().size() == 1 && tbl.getSelectionModel().getSelectedItem() == null) {
+                prefetcher.cancel(p.selected);
+                p.selected = prefetcher.prefetch(indeksId(tbl.getItems().get(0)));
+            }
+        });
+        return p;
+    }
+
+    /** Poziva se iz row factory-ja za svaki novi red. */
+    void attach(TableRow<StudentDTO> row) {
+        row.setOnMouseEntered(e -> {
+            if (row.isEmpty()) return;
+            StudentDTO dto = row.getItem();
+            hoverDelay.setOnFinished(f -> {
+                prefetcher.cancel(hovered);
+                hovered = prefetcher.prefetch(indeksId(dto));
+            });
+            hoverDelay.playFromStart();
+        });
+        row.setOnMouseExited(e -> {
+            hoverDelay.stop();
+            prefetcher.cancel(hovered);
+            hovered = null;
+        });
+    }
+
+    private static Long indeksId(StudentDTO dto) {
+        return dto == null ? null : dto.getIdIndeks();
+    }
+}
@@ -5,27 +5,53 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.FileChooser;
 import org.raflab.studsluzba.controllers.response.StudijskiProgramResponse;
 import org.raflab.studsluzba.navigation.NavigationService;
 import org.raflab.studsluzba.navigation.Route;
+import org.raflab.studsluzba.navigation.ViewScope;
+import org.raflab.studsluzba.service.BatchReportService;
 import org.raflab.studsluzba.service.ProgramApiService;
+import org.raflab.studsluzba.service.ReportJob;
+import org.raflab.studsluzba.service.ReportJobService;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Component
 public class StudyProgramsController {
 
     private final ProgramApiService api;
     private final NavigationService nav;
+    private final BatchReportService batchReports;
+    private final ReportJobService reportJobs;
 
-    public StudyProgramsController(ProgramApiService api, NavigationService nav) {
+    public StudyProgramsController(ProgramApiService api, NavigationService nav,
+                                   BatchReportService batchReports, ReportJobService reportJobs) {
         this.api = api;
         this.nav = nav;
+        this.batchReports = batchReports;
+        this.reportJobs = reportJobs;
+
+        reportJobs.addListener(job -> {
+            if (job == batchJob && lblBatch != null) {
+                lblBatch.setText(job.isActive() ? job.getMessage() : "");
+                showBatchCancel(job.isActive());
+            }
+        });
     }
 
     @FXML private TableView<StudijskiProgramResponse> table;
     @FXML private TableColumn<StudijskiProgramResponse, String> colNaziv;
     @FXML private TableColumn<StudijskiProgramResponse, String> colOznaka;
     @FXML private ProgressIndicator loader;
+    @FXML private Label lblBatch;
+    @FXML private Button btnOtkaziBatch;
+
+    private ReportJob<?> batchJob;
 
     @FXML
     public void initialize() {
@@ -48,13 +74,104 @@ public class StudyProgramsController {
     @FXML
     public void refresh() {
         setLoading(true);
-        api.getStudijskiProgrami().subscribe(list -> Platform.runLater(() -> {
+        ViewScope sc = nav.scope();
+        sc.track(api.getStudijskiProgrami().subscribe(list -> Platform.runLater(sc.guard(() -> {
             table.setItems(FXCollections.observableArrayList(list));
             setLoading(false);
-        }), err -> Platform.runLater(() -> {
+        })), err -> Platform.runLater(sc.guard(() -> {
             setLoading(false);
             alert("Greška", "Neuspešno učitavanje studijskih programa.");
-        }));
+        }))));
+    }
+
+    @FXML
+    public void openBatchDialog() {
+        if (batchJob != null && batchJob.isActive()) {
+            alert("Masovni dokumenti", "Masovno generisanje je već u toku - sačekaj ili ga otkaži.");
+            return;
+        }
+        StudijskiProgramResponse selected = table.getSelectionModel().getSelectedItem();
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Masovni dokumenti");
+        dialog.setHeaderText(selected != null
+                ? "Program: " + ns(selected.getOznaka()) + " - " + ns(selected.getNaziv())
+                : "Svi programi (izaberi program u tabeli da suziš izbor)");
+        ButtonType okType = new ButtonType("Generiši", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(okType, ButtonType.CANCEL);
+
+        ComboBox<BatchReportService.Dokument> cbDokument = new ComboBox<>();
+        cbDokument.getItems().setAll(BatchReportService.Dokument.values());
+        cbDokument.setValue(BatchReportService.Dokument.POTVRDA_STUDIRANJA);
+
+        ComboBox<BatchReportService.Format> cbFormat = new ComboBox<>();
+        cbFormat.getItems().setAll(BatchReportService.Format.values());
+        cbFormat.setValue(BatchReportService.Format.SPOJEN_PDF);
+
+        TextField tfGodina = new TextField();
+        tfGodina.setPromptText("npr. 2023 (opciono)");
+
+        GridPane gp = new GridPane();
+        gp.setHgap(10);
+        gp.setVgap(10);
+        gp.addRow(0, new Label("Dokument:"), cbDokument);
+        gp.addRow(1, new Label("Godina upisa:"), tfGodina);
+        gp.addRow(2, new Label("Format:"), cbFormat);
+        dialog.getDialogPane().setContent(gp);
+
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) != okType) return;
+
+        String program = selected != null ? selected.getOznaka() : null;
+        String godinaText = tfGodina.getText() == null ? "" : tfGodina.getText().trim();
+        if (!godinaText.isEmpty() && !godinaText.matches("\\d{4}")) {
+            alert("Validacija", "Godina upisa mora biti četvorocifren broj (npr. 2023) ili prazna.");
+            return;
+        }
+        Integer godina = godinaText.isEmpty() ? null : Integer.valueOf(godinaText);
+        if (program == null && godina == null) {
+            alert("Validacija", "Izaberi program u tabeli ili unesi godinu upisa.");
+            return;
+        }
+
+        BatchReportService.Dokument dokument = cbDokument.getValue();
+        BatchReportService.Format format = cbFormat.getValue();
+
+        FileChooser fc = new FileChooser();
+        boolean zip = format == BatchReportService.Format.ZIP;
+        fc.getExtensionFilters().add(zip
+                ? new FileChooser.ExtensionFilter("ZIP", "*.zip")
+                : new FileChooser.ExtensionFilter("PDF", "*.pdf"));
+        fc.setInitialFileName((dokument == BatchReportService.Dokument.POTVRDA_STUDIRANJA ? "potvrde" : "uverenja")
+                + "_" + (program != null ? program : "svi") + (godina != null ? "_" + godina : "") + (zip ? ".zip" : ".pdf"));
+        File file = fc.showSaveDialog(table.getScene().getWindow());
+        if (file == null) return;
+
+        batchJob = reportJobs.<BatchReportService.BatchSummary>submit("Masovni dokumenti " + file.getName(), ReportJobService.Priority.LOW, job -> {
+            return batchReports.generate(program, godina, dokument, format, file.toPath(), job);
+        }, summary -> {
+            String msg = (summary.getFile() != null
+                    ? "Fajl: " + summary.getFile()
+                    : "Nijedan dokument nije generisan - fajl nije upisan.") + "\n" + summary;
+            if (summary.getFailed() > 0) {
+                List<String> prve = summary.getGreske().stream().limit(10).collect(Collectors.toList());
+                msg += "\n\nNeuspešni:\n" + String.join("\n", prve) + (summary.getFailed() > 10 ? "\n..." : "");
+            }
+            alert("Masovni dokumenti", msg);
+        }, err -> {
+            alert("Greška", "Masovno generisanje nije uspelo: " + err.getMessage());
+        });
+        showBatchCancel(true);
+    }
+
+    @FXML
+    public void onOtkaziBatch() {
+        if (batchJob != null) batchJob.cancel();
+    }
+
+    private void showBatchCancel(boolean v) {
+        if (btnOtkaziBatch == null) return;
+        btnOtkaziBatch.setVisible(v);
+        btnOtkaziBatch.setManaged(v);
     }
 
     private void setLoading(boolean v) {
@@ -0,0 +1,33 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.scene.Node;
+import javafx.scene.control.TableView;
+
+/**
+ * Koliko redova staje u vidljivi deo tabele - za veličinu strane koja prati visinu prozora.
+ */
+final class TableViewport {
+
+    private static final double DEFAULT_ROW_HEIGHT = 24;
+    private static final double DEFAULT_HEADER_HEIGHT = 26;
+
+    private TableViewport() {
+    }
+
+    static int rowsThatFit(TableView<?> tbl, int min, int max) {
+        double height = tbl.getHeight();
+        if (height <= 0) return min;
+
+        double row = tbl.getFixedCellSize() > 0 ? tbl.getFixedCellSize() : measured(tbl, ".table-row-cell", DEFAULT_ROW_HEIGHT);
+        double header = measured(tbl, ".column-header-background", DEFAULT_HEADER_HEIGHT);
+
+        int rows = (int) Math.floor((height - header - 2) / row);
+        return Math.max(min, Math.min(max, rows));
+    }
+
+    private static double measured(TableView<?> tbl, String selector, double fallback) {
+        Node n = tbl.lookup(selector);
+        double h = n != null ? n.getBoundsInLocal().getHeight() : 0;
+        return h > 0 ? h : fallback;
+    }
+}
@@ -0,0 +1,232 @@
+package org.raflab.studsluzba.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Jedno mesto za izmene UI-a iz reaktivnih tokova: izmene se skupljaju i primenjuju jednom po
+ * JavaFX pulsu (AnimationTimer), umesto po jedan runLater za svaki odgovor/paket.
+ * <ul>
+ *   <li>set - važi samo poslednje stanje po cilju (tabela, labela); starije se preskače</li>
+ *   <li>append - paketi redova za istu listu se spajaju u jedan addAll</li>
+ *   <li>run - jednokratne akcije (greška, kraj učitavanja), redom kojim su stigle</li>
+ * </ul>
+ * Cilj koji nije u sceni duže od grace perioda pripada ekranu koji je korisnik napustio,
+ * pa se njegove izmene odbacuju. Grace period pokriva ekran koji se upravo gradi.
+ */
+@Component
+public class UiDispatcher {
+
+    private final long detachedGraceNanos;
+
+    private final LinkedHashMap<Object, Pending> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long runSeq;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong pulses = new AtomicLong();
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush(now);
+        }
+    };
+
+    public UiDispatcher(@Value("${app.ui.detachedGraceMs:1000}") long detachedGraceMs) {
+        this.detachedGraceNanos = Math.max(0, detachedGraceMs) * 1_000_000;
+    }
+
+    /** Poslednje stanje za target; ranija neprimenjena izmena istog targeta se preskače. */
+    public void set(Node target, Runnable apply) {
+        synchronized (this) {
+            queued.incrementAndGet();
+            Pending p = pending.get(target);
+            if (p != null) {
+                coalesced.incrementAndGet();
+                p.apply = apply;
+            } else {
+                pending.put(target, new Pending(target, apply));
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Redovi se dodaju u items; više paketa do sledećeg pulsa ide kao jedan addAll.
+     * alive se proverava pri primeni - kad se tok otkaže (nov upit u istu listu), zaostali paketi ne ulaze.
+     */
+    public <T> void append(Node owner, List<T> items, Collection<? extends T> rows, BooleanSupplier alive) {
+        if (rows.isEmpty()) return;
+        synchronized (this) {
+            queued.incrementAndGet();
+            Object key = new Identity(items);
+            Pending p = pending.get(key);
+            if (p != null && p.alive != alive) {
+                // paketi prethodnog toka u istu listu - novi tok ih zamenjuje
+                pending.remove(key);
+                dropped.incrementAndGet();
+                p = null;
+            }
+            if (p != null) {
+                coalesced.incrementAndGet();
+                p.rows.addAll(rows);
+            } else {
+                Pending n = new Pending(owner, null);
+                n.rows = new ArrayList<>(rows);
+                n.items = items;
+                n.alive = alive;
+                pending.put(key, n);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Jednokratna akcija vezana za ekran kome pripada owner (ne spaja se sa drugima).
+     * owner null - akcija se ne odbacuje ni kad je ekran napušten (npr. potvrda upisa na server).
+     */
+    public void run(Node owner, Runnable action) {
+        synchronized (this) {
+            queued.incrementAndGet();
+            pending.put(new RunKey(++runSeq), new Pending(owner, action));
+        }
+        schedule();
+    }
+
+    public long getQueued() { return queued.get(); }
+    public long getApplied() { return applied.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getDropped() { return dropped.get(); }
+
+    @Override
+    public synchronized String toString() {
+        return "queued=" + queued + " applied=" + applied + " coalesced=" + coalesced
+                + " dropped=" + dropped + " pulses=" + pulses + " pending=" + pending.size();
+    }
+
+    private void schedule() {
+        synchronized (this) {
+            if (scheduled) return;
+            scheduled = true;
+        }
+        // jedan runLater po "talasu" izmena; dalje ide preko pulsa
+        if (Platform.isFxApplicationThread()) timer.start();
+        else Platform.runLater(timer::start);
+    }
+
+    private void flush(long now) {
+        List<Pending> batch = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Object, Pending>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Pending p = it.next().getValue();
+                if (p.owner != null && p.owner.getScene() == null) {
+                    if (p.detachedSince == 0) p.detachedSince = now;
+                    if (now - p.detachedSince < detachedGraceNanos) continue; // ekran se možda još gradi
+                    it.remove();
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                it.remove();
+                batch.add(p);
+            }
+            if (pending.isEmpty()) {
+                scheduled = false;
+                timer.stop();
+            }
+        }
+
+        if (batch.isEmpty()) return;
+        pulses.incrementAndGet();
+        // primena ide odmah posle pulsa, ne u njemu: showAndWait (dijalozi grešaka) nije dozvoljen tokom animacije
+        Platform.runLater(() -> apply(batch));
+    }
+
+    private void apply(List<Pending> batch) {
+        for (Pending p : batch) {
+            if (p.alive != null && !p.alive.getAsBoolean()) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            try {
+                p.applyNow();
+                applied.incrementAndGet();
+            } catch (Exception e) {
+                System.out.println(">>> UI izmena nije uspela: " + e);
+            }
+        }
+    }
+
+    private static final class Pending {
+        final Node owner;
+        Runnable apply;
+        List<Object> rows;
+        List<?> items;
+        BooleanSupplier alive;
+        long detachedSince;
+
+        Pending(Node owner, Runnable apply) {
+            this.owner = owner;
+            this.apply = apply;
+        }
+
+        @SuppressWarnings("unchecked")
+        void applyNow() {
+            if (items != null) ((List<Object>) items).addAll(rows);
+            else apply.run();
+        }
+    }
+
+    /** ObservableList poredi sadržaj - ključ mora biti po identitetu. */
+    private static final class Identity {
+        final Object ref;
+
+        Identity(Object ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).ref == ref;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ref);
+        }
+    }
+
+    private static final class RunKey {
+        final long seq;
+
+        RunKey(long seq) {
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RunKey && ((RunKey) o).seq == seq;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(seq);
+        }
+    }
+}
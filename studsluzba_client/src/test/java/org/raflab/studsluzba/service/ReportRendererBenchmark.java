@@ -0,0 +1,110 @@
+package org.raflab.studsluzba.service;
+
+import org.raflab.studsluzba.controllers.response.StudentIndeksResponse;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Poređenje Jasper i OpenPDF renderera za potvrdu o studiranju (latencija i alokacija po dokumentu).
+ * Nalazi se u test stablu (ne ulazi u jar aplikacije); pokreće se bez Spring-a i servera:
+ *   java -cp target/classes:target/test-classes:... org.raflab.studsluzba.service.ReportRendererBenchmark [warmup] [iteracije]
+ * Na osnovu rezultata se odlučuje da li uključiti app.reports.renderer.potvrda_studiranja=openpdf.
+ */
+public class ReportRendererBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        ReportTemplateRegistry templates = new ReportTemplateRegistry("", new StandardEnvironment());
+        // keš isključen - merimo samo renderer
+        ReportService reports = new ReportService(templates, new PotvrdaStudiranjaPdfRenderer(),
+                new PdfCache(false, System.getProperty("java.io.tmpdir"), 1),
+                System.getProperty("java.io.tmpdir"), false, Long.MAX_VALUE, 0, 20, "");
+
+        StudentIndeksResponse indeks = new StudentIndeksResponse();
+        indeks.setId(1L);
+        indeks.setImeStudenta("Đorđe");
+        indeks.setPrezimeStudenta("Šćepanović");
+        indeks.setStudProgramOznaka("RN");
+        indeks.setStudijskiProgramNaziv("Računarske nauke");
+        indeks.setGodina(2021);
+        indeks.setBroj(42);
+        indeks.setOstvarenoEspb(180);
+
+        Renderer jasper = () -> reports.export(reports.fillPotvrdaStudiranja(indeks, null),
+                ReportOutput.toStream(OutputStream.nullOutputStream()), "bench");
+        Renderer openPdf = () -> reports.renderPotvrdaOpenPdf(indeks, null,
+                ReportOutput.toStream(OutputStream.nullOutputStream()));
+
+        // log po dokumentu bi ugušio merenje
+        java.io.PrintStream console = System.out;
+        System.setOut(new java.io.PrintStream(OutputStream.nullOutputStream()));
+        Result rJasper;
+        Result rOpenPdf;
+        try {
+            rJasper = measure(jasper, warmup, iterations);
+            rOpenPdf = measure(openPdf, warmup, iterations);
+        } finally {
+            System.setOut(console);
+        }
+
+        System.out.println("potvrda_studiranja, " + iterations + " iteracija (warmup " + warmup + ")");
+        System.out.println("  jasper  : " + rJasper);
+        System.out.println("  openpdf : " + rOpenPdf);
+        System.out.printf("  openpdf/jasper: latencija %.2fx, alokacija %.2fx%n",
+                rOpenPdf.p50Micros / Math.max(1e-9, rJasper.p50Micros),
+                (double) rOpenPdf.bytesPerDoc / Math.max(1, rJasper.bytesPerDoc));
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        void render() throws Exception;
+    }
+
+    private static Result measure(Renderer r, int warmup, int iterations) throws Exception {
+        for (int i = 0; i < warmup; i++) r.render();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+
+        long[] nanos = new long[iterations];
+        long allocStart = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            r.render();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long alloc = threads.getThreadAllocatedBytes(tid) - allocStart;
+
+        Arrays.sort(nanos);
+        return new Result(
+                nanos[iterations / 2] / 1000.0,
+                nanos[(int) (iterations * 0.95)] / 1000.0,
+                Arrays.stream(nanos).average().orElse(0) / 1000.0,
+                alloc / iterations);
+    }
+
+    private static final class Result {
+        final double p50Micros;
+        final double p95Micros;
+        final double avgMicros;
+        final long bytesPerDoc;
+
+        Result(double p50Micros, double p95Micros, double avgMicros, long bytesPerDoc) {
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.avgMicros = avgMicros;
+            this.bytesPerDoc = bytesPerDoc;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50=%.0f us  p95=%.0f us  avg=%.0f us  alloc=%d KB/dok",
+                    p50Micros, p95Micros, avgMicros, bytesPerDoc / 1024);
+        }
+    }
+}